@@ -0,0 +1,87 @@
+package benchmarks;
+
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.assertions.JsonSchema;
+import utils.models.ModelCodec;
+import utils.models.Repo;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static utils.assertions.JsonExpectations.json;
+
+/**
+ * Pulling values out of a response body and checking them: GPath extraction and matching as RestAssured does it,
+ * against the streaming {@link utils.assertions.JsonExpectations} and the typed models, and the schema check every
+ * response goes through.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssertionBenchmark {
+
+    private Response response;
+
+    @Setup
+    public void setUp() {
+        response = BenchmarkData.repoResponse();
+    }
+
+    @Benchmark
+    public void extractJsonPath(Blackhole blackhole) {
+        JsonPath path = JsonPath.from(BenchmarkData.REPO_JSON);
+        blackhole.consume(path.getString("name"));
+        blackhole.consume(path.getString("owner.login"));
+    }
+
+    @Benchmark
+    public void extractModel(Blackhole blackhole) {
+        Repo repo = ModelCodec.decode(BenchmarkData.REPO_JSON_BYTES, Repo.class);
+        blackhole.consume(repo.getName());
+        blackhole.consume(repo.getOwner().getLogin());
+    }
+
+    @Benchmark
+    public boolean matchHamcrest() {
+        return equalTo(BenchmarkData.REPO_NAME).matches(BenchmarkData.REPO_NAME)
+                && equalTo(BenchmarkData.DESCRIPTION).matches(BenchmarkData.DESCRIPTION);
+    }
+
+    @Benchmark
+    public Object matchGPath() {
+        return response.then()
+                .body("name", equalTo(BenchmarkData.REPO_NAME))
+                .body("description", equalTo(BenchmarkData.DESCRIPTION))
+                .body("owner.login", equalTo(BenchmarkData.OWNER));
+    }
+
+    @Benchmark
+    public Object matchJsonExpectations() {
+        return response.then()
+                .body(json()
+                        .at("/name", equalTo(BenchmarkData.REPO_NAME))
+                        .at("/description", equalTo(BenchmarkData.DESCRIPTION))
+                        .at("/owner/login", equalTo(BenchmarkData.OWNER)));
+    }
+
+    @Benchmark
+    public List<String> validateSchema() {
+        return JsonSchema.named("repo").validate(BenchmarkData.REPO_JSON_BYTES);
+    }
+}
@@ -0,0 +1,133 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result with the stored baseline and fails when a benchmark got slower than the tolerance
+ * allows. A difference only counts when it is also larger than the two runs' error margins combined, so noise
+ * on a busy machine does not fail the build. An error margin above half of its score is ignored rather than
+ * trusted, so one noisy run cannot switch the check off; such rows are marked noisy. The baseline is rewritten
+ * with the result when there is none yet or when asked to (-Dbench.updateBaseline=true); record it with the
+ * project's target JDK on the machine the comparisons will run on.
+ * <p>
+ * Arguments: result file, baseline file, tolerance in percent, whether to update the baseline.
+ */
+public final class BaselineComparison {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final double MAX_ERROR_FRACTION = 0.5;
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path result = Paths.get(args[0]);
+        Path baseline = Paths.get(args[1]);
+        double tolerancePercent = Double.parseDouble(args[2]);
+        boolean update = Boolean.parseBoolean(args[3]);
+
+        if (!Files.exists(baseline)) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            Files.copy(result, baseline);
+            System.out.println("No baseline yet; stored " + result + " as " + baseline);
+            return;
+        }
+
+        Map<String, Score> current = scores(result);
+        Map<String, Score> previous = scores(baseline);
+        int regressions = 0;
+        System.out.printf(Locale.ROOT, "%-70s %14s %14s %9s  %s%n", "benchmark", "baseline", "current", "change", "");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = previous.get(entry.getKey());
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "%-70s %14s %14s %9s  new%n", entry.getKey(), "-", now, "");
+                continue;
+            }
+            // Positive when the benchmark got worse, whichever direction is better for its mode
+            double worse = now.higherIsBetter() ? before.value - now.value : now.value - before.value;
+            double changePercent = 100 * worse / before.value;
+            boolean regressed = changePercent > tolerancePercent && Math.abs(worse) > before.margin() + now.margin();
+            regressions += regressed ? 1 : 0;
+            String noisy = before.isNoisy() || now.isNoisy() ? "noisy" : "";
+            System.out.printf(Locale.ROOT, "%-70s %14s %14s %8.1f%%  %s%n", entry.getKey(), before, now,
+                    changePercent, regressed ? "REGRESSION " + noisy : noisy);
+        }
+
+        if (update) {
+            Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline " + baseline + " updated from " + result);
+        } else if (regressions > 0) {
+            throw new IllegalStateException(regressions + " benchmark(s) slower than the baseline by more than "
+                    + tolerancePercent + "%");
+        }
+    }
+
+    // Keyed by benchmark, parameters and mode, e.g. "benchmarks.RoundTripBenchmark.getRepo [transport=jdk] avgt"
+    private static Map<String, Score> scores(Path file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        for (JsonNode run : MAPPER.readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            JsonNode params = run.path("params");
+            if (params.size() > 0) {
+                Map<String, String> sorted = new TreeMap<>();
+                for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> param = it.next();
+                    sorted.put(param.getKey(), param.getValue().asText());
+                }
+                key.append(' ').append(sorted);
+            }
+            String mode = run.path("mode").asText();
+            key.append(' ').append(mode);
+
+            JsonNode metric = run.path("primaryMetric");
+            double error = metric.path("scoreError").asDouble(0);
+            scores.put(key.toString(), new Score(mode, metric.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error, metric.path("scoreUnit").asText()));
+        }
+        return scores;
+    }
+
+    private static final class Score {
+        final String mode;
+        final double value;
+        final double error;
+        final String unit;
+
+        Score(String mode, double value, double error, String unit) {
+            this.mode = mode;
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        boolean isNoisy() {
+            return error > MAX_ERROR_FRACTION * value;
+        }
+
+        // The error margin a change has to exceed, or none when the margin is too wide to mean anything
+        double margin() {
+            return isNoisy() ? 0 : error;
+        }
+
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.3f %s", value, unit);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.api.ApiSpecs;
+import utils.stub.GitHubStubServer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static utils.assertions.JsonExpectations.json;
+
+/**
+ * A whole GET /repos/{owner}/{repo} through the shared spec, its filters and the transport, against the
+ * in-process stub, asserted the way the tests do. Repeated reads revalidate with ETags, as they do in the suites.
+ * Every transport runs in a JVM of its own, since the transport is chosen once per process.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    private static final Header AUTH_HEADER = new Header("Authorization", "Bearer " + BenchmarkData.AUTH_TOKEN);
+
+    @Param({"apache", "jdk"})
+    public String transport;
+
+    private GitHubStubServer stub;
+
+    @Setup(Level.Trial)
+    public void startStub() throws IOException {
+        stub = new GitHubStubServer(0)
+                .registerUser(BenchmarkData.AUTH_TOKEN, BenchmarkData.OWNER)
+                .seedRepo(BenchmarkData.OWNER, BenchmarkData.REPO_NAME)
+                .rateLimit(1_000_000_000);
+        stub.start();
+
+        // Read when the spec, the scheduler and the transport are first used, which is after this
+        System.setProperty("BASE_URL", stub.baseUrl());
+        System.setProperty("RATE_LIMIT_CONTENT_PER_MINUTE", "0");
+        System.setProperty("HTTP_TRANSPORT", transport);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopStub() {
+        stub.stop();
+    }
+
+    @Benchmark
+    public Response getRepo() {
+        return get();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Response getRepoConcurrently() {
+        return get();
+    }
+
+    private static Response get() {
+        return given()
+                .spec(ApiSpecs.spec())
+                .header(AUTH_HEADER)
+                .when()
+                .get("/repos/{owner}/{repo}", BenchmarkData.OWNER, BenchmarkData.REPO_NAME)
+                .then()
+                .statusCode(200)
+                .body(json()
+                        .at("/name", equalTo(BenchmarkData.REPO_NAME)))
+                .extract().response();
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import groovy.json.JsonOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.models.ModelCodec;
+import utils.models.Repo;
+import utils.models.RepoCreateRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request bodies to bytes and response bodies to models. The Groovy map variant is how bodies were built
+ * before the typed models, kept as a reference point.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Benchmark
+    public byte[] encodeModel() {
+        return ModelCodec.encode(new RepoCreateRequest(BenchmarkData.REPO_NAME, BenchmarkData.DESCRIPTION));
+    }
+
+    @Benchmark
+    public byte[] encodeGroovyMap() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("name", BenchmarkData.REPO_NAME);
+        body.put("description", BenchmarkData.DESCRIPTION);
+        return JsonOutput.toJson(body).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Repo decodeModel() {
+        return ModelCodec.decode(BenchmarkData.REPO_JSON_BYTES, Repo.class);
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import io.restassured.http.Header;
+import io.restassured.specification.RequestSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.api.ApiSpecs;
+import utils.models.ModelCodec;
+import utils.models.RepoCreateRequest;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Building a request the way the tests do, up to the point where it would be sent.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecBenchmark {
+
+    private static final Header AUTH_HEADER = new Header("Authorization", "Bearer " + BenchmarkData.AUTH_TOKEN);
+
+    @Benchmark
+    public RequestSpecification headerPerCall() {
+        return given()
+                .spec(ApiSpecs.spec())
+                .header(new Header("Authorization", "Bearer " + BenchmarkData.AUTH_TOKEN));
+    }
+
+    @Benchmark
+    public RequestSpecification sharedHeader() {
+        return given()
+                .spec(ApiSpecs.spec())
+                .header(AUTH_HEADER);
+    }
+
+    @Benchmark
+    public RequestSpecification withBody() {
+        return given()
+                .spec(ApiSpecs.spec())
+                .header(AUTH_HEADER)
+                .body(ModelCodec.encode(new RepoCreateRequest(BenchmarkData.REPO_NAME, BenchmarkData.DESCRIPTION)));
+    }
+}
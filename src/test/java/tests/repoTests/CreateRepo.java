@@ -1,164 +1,192 @@
 package tests.repoTests;
 
-import io.restassured.RestAssured;
 import io.restassured.http.Header;
 import io.restassured.response.Response;
 import org.testng.annotations.AfterMethod;
-import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
-import utils.PropertyReader;
+import utils.api.ApiSpecs;
+import utils.api.ReadAfterWrite;
+import utils.api.RepoNames;
+import utils.auth.Credential;
+import utils.auth.CredentialPool;
+import utils.fixtures.RepoCleanup;
+import utils.models.ApiError;
+import utils.models.ModelCodec;
+import utils.models.Repo;
+import utils.models.RepoCreateRequest;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static utils.assertions.JsonExpectations.json;
 
 public class CreateRepo {
 
-    public PropertyReader propertyReader = new PropertyReader("src/test/java/properties/config.properties");
-
-    public String BASE_URL = propertyReader.getProperty("BASE_URL");
-    public String OWNER_USERNAME = propertyReader.getProperty("OWNER_USERNAME");
-    public String AUTH_TOKEN = propertyReader.getProperty("AUTH_TOKEN");
-
     public String INVALID_AUTH_TOKEN = "INVALID_AUTH_TOKEN";
 
-    public String createdRepoName;
-
-    @BeforeClass
-    public void setUp() {
-        // Set the base URL
-        RestAssured.baseURI = BASE_URL;
-    }
+    // Scoped to the invocation's thread, so parallel tests never tear down each other's repos
+    public ThreadLocal<Repo> createdRepo = new ThreadLocal<>();
 
     @Test
     public void createRepo() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
+        // Generate a unique repository name
+        String repoName = RepoNames.unique("my-repo");
+
         // Define the request body with repository name and description
-        String requestBody = "{ \"name\": \"my-repo\", \"description\": \"This is a test repository\" }";
+        byte[] requestBody = ModelCodec.encode(new RepoCreateRequest(repoName, "This is a test repository"));
 
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
         // Send the POST request to create a repository
         Response response = given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .body(requestBody)
                 .when()
                 .post("/user/repos")
                 .then()
                 .statusCode(201)
-                .body("name", equalTo("my-repo"))
-                .body("description", equalTo("This is a test repository"))
+                .body(json()
+                        .at("/name", equalTo(repoName))
+                        .at("/description", equalTo("This is a test repository")))
                 .extract().response();
 
-        // Extract the created repository name for the teardown
-        createdRepoName = response.jsonPath().getString("name");
+        // Extract the created repository for the teardown
+        createdRepo.set(ModelCodec.decode(response, Repo.class));
+
+        // Wait until the repository can be read back, so the teardown never races its creation
+        ReadAfterWrite.repoVisible(authHeader, credential.owner(), repoName);
     }
 
     @Test
     public void createRepoWithoutDescription() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
+        // Generate a unique repository name
+        String repoName = RepoNames.unique("my-repo2");
+
         // Define the request body with repository name and description
-        String requestBody = "{ \"name\": \"my-repo2\"}";
+        byte[] requestBody = ModelCodec.encode(new RepoCreateRequest(repoName, null));
 
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
         // Send the POST request to create a repository
         Response response = given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .body(requestBody)
                 .when()
                 .post("/user/repos")
                 .then()
                 .statusCode(201)
-                .body("name", equalTo("my-repo2"))
+                .body(json()
+                        .at("/name", equalTo(repoName)))
                 .extract().response();
 
-        // Extract the created repository name for the teardown
-        createdRepoName = response.jsonPath().getString("name");
+        // Extract the created repository for the teardown
+        createdRepo.set(ModelCodec.decode(response, Repo.class));
+
+        // Wait until the repository can be read back, so the teardown never races its creation
+        ReadAfterWrite.repoVisible(authHeader, credential.owner(), repoName);
     }
 
     /*** Negative Tests ***/
     @Test
     public void createRepoWithoutAuthHeader() {
         // Define the request body with repository name and description
-        String requestBody = "{ \"name\": \"my-repo\", \"description\": \"This is a test repository\" }";
+        byte[] requestBody = ModelCodec.encode(new RepoCreateRequest(RepoNames.unique("my-repo"), "This is a test repository"));
 
         // Send the POST request to create a repository
         Response response = given()
+                .spec(ApiSpecs.spec())
                 .body(requestBody)
                 .when()
                 .post("/user/repos")
                 .then()
                 .statusCode(401)
-                .body("message", equalTo("Requires authentication"))
-                .body("documentation_url", containsString("https://docs.github.com/"))
+                .body(json()
+                        .at("/message", equalTo("Requires authentication"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")))
                 .extract().response();
 
-        // Extract the created repository name for the teardown
-        createdRepoName = response.jsonPath().getString("name");
+        // Nothing was created, so there is nothing to tear down; the body is an error without field errors
+        ApiError error = ModelCodec.decode(response, ApiError.class);
+        assertTrue(error.getErrors().isEmpty(), "An authentication failure should not report field errors");
     }
 
     @Test
     public void createRepoWithInvalidToken() {
         // Define the request body with repository name and description
-        String requestBody = "{ \"name\": \"my-repo\", \"description\": \"This is a test repository\" }";
+        byte[] requestBody = ModelCodec.encode(new RepoCreateRequest(RepoNames.unique("my-repo"), "This is a test repository"));
 
         // Set up invalid Authorization Bearer header
         Header authHeader = new Header("Authorization", "Bearer " + INVALID_AUTH_TOKEN);
 
         // Send the POST request to create a repository
         Response response = given()
+                .spec(ApiSpecs.spec())
                 .body(requestBody)
                 .when()
                 .post("/user/repos")
                 .then()
                 .statusCode(401)
-                .body("message", equalTo("Requires authentication"))
-                .body("documentation_url", containsString("https://docs.github.com/"))
+                .body(json()
+                        .at("/message", equalTo("Requires authentication"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")))
                 .extract().response();
 
-        // Extract the created repository name for the teardown
-        createdRepoName = response.jsonPath().getString("name");
+        // Nothing was created, so there is nothing to tear down; the body is an error without field errors
+        ApiError error = ModelCodec.decode(response, ApiError.class);
+        assertTrue(error.getErrors().isEmpty(), "An authentication failure should not report field errors");
     }
 
     @Test
     public void createRepoWithoutName() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Define the request body without repository name
-        String requestBody = "{ \"description\": \"This is a test repository\" }";
+        byte[] requestBody = ModelCodec.encode(new RepoCreateRequest(null, "This is a test repository"));
 
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
         // Send the POST request to create a repository
         Response response = given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .body(requestBody)
                 .when()
                 .post("/user/repos")
                 .then()
                 .statusCode(422)
-                .body("message", equalTo("Repository creation failed."))
-                .body("errors[0].code", equalTo("missing_field"))
-                .body("errors[0].field", equalTo("name"))
+                .body(json()
+                        .at("/message", equalTo("Repository creation failed."))
+                        .at("/errors/0/code", equalTo("missing_field"))
+                        .at("/errors/0/field", equalTo("name")))
                 .extract().response();
 
-        // Extract the created repository name for the teardown
-        createdRepoName = response.jsonPath().getString("name");
+        // Nothing was created, so there is nothing to tear down; the missing name is the only field error
+        ApiError error = ModelCodec.decode(response, ApiError.class);
+        assertEquals(error.getErrors().size(), 1, "Expected exactly one field error");
+        assertEquals(error.getErrors().get(0).getResource(), "Repository");
     }
 
     @AfterMethod
     public void tearDown() {
-        // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
-
-        // Delete the repository that was created during the test
-        if (createdRepoName != null) {
-            given()
-                    .header(authHeader)
-                    .when()
-                    .delete("/repos/{owner}/{repo}", OWNER_USERNAME, createdRepoName)
-                    .then()
-                    .statusCode(204);
+        // Queue the repository that was created during the test for asynchronous deletion, as its owner
+        Repo repo = createdRepo.get();
+        createdRepo.remove();
+        if (repo != null) {
+            RepoCleanup.get().delete(repo.getOwner().getLogin(), repo.getName());
         }
     }
 }
@@ -1,152 +1,153 @@
 package tests.repoTests;
 
-import io.restassured.RestAssured;
 import io.restassured.http.Header;
-import io.restassured.response.Response;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
-import utils.PropertyReader;
+import utils.api.ApiSpecs;
+import utils.api.ReadAfterWrite;
+import utils.auth.Credential;
+import utils.auth.CredentialPool;
+import utils.config.Config;
+import utils.fixtures.RepoFixturePool;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static utils.assertions.JsonExpectations.json;
 
 public class DeleteRepo {
 
-    public PropertyReader propertyReader = new PropertyReader("src/test/java/properties/config.properties");
+    public Config config = Config.get();
 
-    public String BASE_URL = propertyReader.getProperty("BASE_URL");
-    public String REPO_NAME = propertyReader.getProperty("REPO_NAME");
-    public String OWNER_USERNAME = propertyReader.getProperty("OWNER_USERNAME");
-    public String AUTH_TOKEN = propertyReader.getProperty("AUTH_TOKEN");
+    public String REPO_NAME = config.getString("REPO_NAME");
 
     public String INVALID_REPO_NAME = "invalidRepo";
     public String INVALID_OWNER_USERNAME = "invalidOwner";
     public String INVALID_AUTH_TOKEN = "INVALID_AUTH_TOKEN";
 
-    public String createdRepoName;
-    private String repoName;
+    // Written in setUp and deleteRepo, read in tearDown, possibly on different threads
+    public volatile String createdRepoName;
+    private volatile String repoName;
 
     @BeforeClass
     public void setUp() {
-        // Set the base URL
-        RestAssured.baseURI = BASE_URL;
-
-        // Generate a unique repository name
-        repoName = "testRepo_" + System.currentTimeMillis();
-
-        // Define the request body
-        String requestBody = "{ \"name\": \"" + repoName + "\", \"description\": \"This is a test repository for deletion\" }";
-
-        // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
-
-        // Create a repository using POST request
-        Response response = given()
-                .header(authHeader)
-                .body(requestBody)
-                .when()
-                .post("/user/repos")
-                .then()
-                .statusCode(201)
-                .body("name", equalTo(repoName))
-                .body("description", equalTo("This is a test repository for deletion"))
-                .extract().response();
-
-        createdRepoName = response.jsonPath().getString("name");
+        // Lease a pre-provisioned repository from the fixture pool
+        repoName = RepoFixturePool.get().lease();
+        createdRepoName = repoName;
     }
 
     @Test
     public void deleteRepo() {
+        // Act as the identity that owns the leased repository
+        Credential credential = RepoFixturePool.get().ownerOf(repoName);
+
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
         // Delete the created repository using DELETE request
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .when()
-                .delete("/repos/{owner}/{repo}", OWNER_USERNAME, repoName)
+                .delete("/repos/{owner}/{repo}", credential.owner(), repoName)
                 .then()
                 .statusCode(204);
 
+        // Reads report the repository as gone once the deletion has propagated
+        ReadAfterWrite.repoGone(authHeader, credential.owner(), repoName);
+
+        // The pool replaces the deleted repository in the background
+        RepoFixturePool.get().consumed(repoName);
         createdRepoName = null;
     }
 
     /*** Negative Tests ***/
     @Test
     public void deleteRepoWithoutAuthHeader() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Delete the created repository without Authorization header
         given()
+                .spec(ApiSpecs.spec())
                 .when()
-                .delete("/repos/{owner}/{repo}", OWNER_USERNAME, REPO_NAME)
+                .delete("/repos/{owner}/{repo}", credential.owner(), REPO_NAME)
                 .then()
                 .statusCode(403)
-                .body("message", equalTo("Must have admin rights to Repository."))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Must have admin rights to Repository."))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
     }
 
     @Test
     public void deleteRepoWithInvalidToken() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Set up invalid Authorization Bearer header
         Header authHeader = new Header("Authorization", "Bearer " + INVALID_AUTH_TOKEN);
 
         // Delete the created repository using DELETE request
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .when()
-                .delete("/repos/{owner}/{repo}", OWNER_USERNAME, REPO_NAME)
+                .delete("/repos/{owner}/{repo}", credential.owner(), REPO_NAME)
                 .then()
                 .statusCode(401) // Assert the response status code
-                .body("message", equalTo("Bad credentials"))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Bad credentials"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
     }
 
     @Test
     public void deleteRepoWithInvalidOwner() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
         // Delete the created repository using DELETE request with invalid owner
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .when()
                 .delete("/repos/{owner}/{repo}", INVALID_OWNER_USERNAME, REPO_NAME)
                 .then()
                 .statusCode(404)
-                .body("message", equalTo("Not Found"))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Not Found"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
     }
 
     @Test
     public void deleteRepoWithInvalidName() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
         // Delete the created repository using DELETE request with invalid repo name
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .when()
-                .delete("/repos/{owner}/{repo}", OWNER_USERNAME, INVALID_REPO_NAME)
+                .delete("/repos/{owner}/{repo}", credential.owner(), INVALID_REPO_NAME)
                 .then()
                 .statusCode(404)
-                .body("message", equalTo("Not Found"))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Not Found"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
     }
 
     @AfterClass
     public void tearDown() {
-        // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
-
-        // Delete the repository that was created during the test
+        // Return the repository to the pool if the test did not delete it
         if (createdRepoName != null) {
-            given()
-                    .header(authHeader)
-                    .when()
-                    .delete("/repos/{owner}/{repo}", OWNER_USERNAME, createdRepoName)
-                    .then()
-                    .statusCode(204);
+            RepoFixturePool.get().release(createdRepoName);
         }
     }
 }
@@ -1,34 +1,48 @@
 package tests.repoTests;
 
-import io.restassured.RestAssured;
 import io.restassured.http.Header;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
-import utils.PropertyReader;
+import utils.api.ApiSpecs;
+import utils.api.ReadAfterWrite;
+import utils.auth.Credential;
+import utils.auth.CredentialPool;
+import utils.config.Config;
+import utils.data.EditVariants;
+import utils.fixtures.RepoCleanup;
+import utils.fixtures.RepoFixturePool;
+import utils.models.ModelCodec;
+import utils.models.RepoUpdateRequest;
+
+import java.util.Iterator;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static utils.assertions.JsonExpectations.json;
 
 public class EditRepo {
 
-    public PropertyReader propertyReader = new PropertyReader("src/test/java/properties/config.properties");
+    public Config config = Config.get();
 
-    public String BASE_URL = propertyReader.getProperty("BASE_URL");
-    public String REPO_NAME = propertyReader.getProperty("REPO_NAME");
-    public String OWNER_USERNAME = propertyReader.getProperty("OWNER_USERNAME");
-    public String AUTH_TOKEN = propertyReader.getProperty("AUTH_TOKEN");
+    public String REPO_NAME = config.getString("REPO_NAME");
 
     public String INVALID_REPO_NAME = "invalidRepo";
     public String INVALID_OWNER_USERNAME = "invalidOwner";
     public String INVALID_AUTH_TOKEN = "INVALID_AUTH_TOKEN";
 
+    // Rows per generated data provider; raise with -DEDIT_VARIANT_COUNT for broad coverage runs
+    public int EDIT_VARIANT_COUNT = config.getInt("EDIT_VARIANT_COUNT");
+
+    private String repoName;
+
     @BeforeClass
     public void setUp() {
-        // Set the base URL
-        RestAssured.baseURI = BASE_URL;
+        // Lease a pre-provisioned repository to edit, so the shared REPO_NAME repository is left untouched
+        repoName = RepoFixturePool.get().lease();
     }
 
     @DataProvider(name = "newDescriptions")
@@ -36,115 +50,248 @@ public class EditRepo {
         return new Object[][]{
                 {"Updated description only string"},
                 {"12345"},
-                {"!#$%^&*()_+|"}
+                {"!#$%^&*()_+|"},
+                {"Quotes \" and backslashes \\ are escaped"}
         };
     }
 
     @Test(dataProvider = "newDescriptions")
     public void editRepo(String newDescription) {
+        // Act as the identity that owns the leased repository
+        Credential credential = RepoFixturePool.get().ownerOf(repoName);
+
         // Define the request body with the new description
-        String requestBody = "{ \"description\": \"" + newDescription + "\" }";
+        byte[] requestBody = ModelCodec.encode(RepoUpdateRequest.description(newDescription));
 
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
         // Send the PATCH request to update the repository description
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .body(requestBody)
                 .when()
-                .patch("/repos/" + OWNER_USERNAME + "/" + REPO_NAME)
+                .patch("/repos/" + credential.owner() + "/" + repoName)
                 .then()
                 .statusCode(200)
-                .body("description", equalTo(newDescription));
+                .body(json()
+                        .at("/description", equalTo(newDescription)));
+
+        // Reads return the new description once the edit has propagated
+        ReadAfterWrite.repoMatches(authHeader, credential.owner(), repoName, "description updated",
+                json().at("/description", equalTo(newDescription)));
+    }
+
+    @DataProvider(name = "descriptionVariants", parallel = true)
+    public Iterator<Object[]> getDescriptionVariants() {
+        return EditVariants.descriptions(EDIT_VARIANT_COUNT);
+    }
+
+    @Test(dataProvider = "descriptionVariants")
+    public void editRepoDescriptionVariant(String newDescription) {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
+        // Set up Authorization Bearer header
+        Header authHeader = credential.authHeader();
+
+        // Lease a repository for this invocation only, so parallel invocations never PATCH the same repo
+        String leasedRepo = RepoFixturePool.get().lease();
+        try {
+            given()
+                    .spec(ApiSpecs.spec())
+                    .header(authHeader)
+                    .body(ModelCodec.encode(RepoUpdateRequest.description(newDescription)))
+                    .when()
+                    .patch("/repos/{owner}/{repo}", credential.owner(), leasedRepo)
+                    .then()
+                    .statusCode(200)
+                    .body(json()
+                            .at("/description", equalTo(newDescription)));
+        } finally {
+            RepoFixturePool.get().release(leasedRepo);
+        }
+    }
+
+    @DataProvider(name = "nameVariants", parallel = true)
+    public Iterator<Object[]> getNameVariants() {
+        return EditVariants.names(EDIT_VARIANT_COUNT);
+    }
+
+    @Test(dataProvider = "nameVariants")
+    public void editRepoNameVariant(EditVariants.NameVariant variant) {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
+        // Set up Authorization Bearer header
+        Header authHeader = credential.authHeader();
+
+        String leasedRepo = RepoFixturePool.get().lease();
+        String newName = variant.build();
+        String currentName = leasedRepo;
+        try {
+            if (!variant.valid()) {
+                // Names over the length limit are rejected and the repository keeps its name
+                given()
+                        .spec(ApiSpecs.spec())
+                        .header(authHeader)
+                        .body(ModelCodec.encode(new RepoUpdateRequest(newName, null, null)))
+                        .when()
+                        .patch("/repos/{owner}/{repo}", credential.owner(), leasedRepo)
+                        .then()
+                        .statusCode(422);
+                return;
+            }
+
+            // Rename the repository, then rename it back so it can be returned to the pool
+            given()
+                    .spec(ApiSpecs.spec())
+                    .header(authHeader)
+                    .body(ModelCodec.encode(new RepoUpdateRequest(newName, null, null)))
+                    .when()
+                    .patch("/repos/{owner}/{repo}", credential.owner(), leasedRepo)
+                    .then()
+                    .statusCode(200)
+                    .body(json()
+                            .at("/name", equalTo(newName))
+                            .at("/full_name", equalTo(credential.owner() + "/" + newName)));
+            currentName = newName;
+
+            given()
+                    .spec(ApiSpecs.spec())
+                    .header(authHeader)
+                    .body(ModelCodec.encode(new RepoUpdateRequest(leasedRepo, null, null)))
+                    .when()
+                    .patch("/repos/{owner}/{repo}", credential.owner(), newName)
+                    .then()
+                    .statusCode(200);
+            currentName = leasedRepo;
+        } finally {
+            if (currentName.equals(leasedRepo)) {
+                RepoFixturePool.get().release(leasedRepo);
+            } else {
+                // Stuck under the variant name: delete it and let the pool provision a replacement
+                RepoCleanup.get().delete(credential.owner(), currentName);
+                RepoFixturePool.get().consumed(leasedRepo);
+            }
+        }
     }
 
     /*** Negative Tests ***/
     @Test
     public void editRepoWithoutAuthHeader() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Define the new description for the repository
         String newDescription = "Update description " + System.currentTimeMillis();
 
         // Define the request body with the new description
-        String requestBody = "{ \"description\": \"" + newDescription + "\" }";
+        byte[] requestBody = ModelCodec.encode(RepoUpdateRequest.description(newDescription));
 
         // Send the PATCH request to update the repository description
         given()
+                .spec(ApiSpecs.spec())
                 .body(requestBody)
                 .when()
-                .patch("/repos/" + OWNER_USERNAME + "/" + REPO_NAME)
+                .patch("/repos/" + credential.owner() + "/" + REPO_NAME)
                 .then()
                 .statusCode(404)
-                .body("message", equalTo("Not Found"))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Not Found"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
     }
 
     @Test
     public void editRepoWithInvalidOwner() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Define the new description for the repository
         String newDescription = "Update description " + System.currentTimeMillis();
 
         // Define the request body with the new description
-        String requestBody = "{ \"description\": \"" + newDescription + "\" }";
+        byte[] requestBody = ModelCodec.encode(RepoUpdateRequest.description(newDescription));
 
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
         // Send the PATCH request to update the repository description
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .body(requestBody)
                 .when()
                 .patch("/repos/" + INVALID_OWNER_USERNAME + "/" + REPO_NAME)
                 .then()
                 .statusCode(404)
-                .body("message", equalTo("Not Found"))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Not Found"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
     }
 
     @Test
     public void editRepoWithInvalidName() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Define the new description for the repository
         String newDescription = "Update description " + System.currentTimeMillis();
 
         // Define the request body with the new description
-        String requestBody = "{ \"description\": \"" + newDescription + "\" }";
+        byte[] requestBody = ModelCodec.encode(RepoUpdateRequest.description(newDescription));
 
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
         // Send the PATCH request to update the repository description
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .body(requestBody)
                 .when()
-                .patch("/repos/" + OWNER_USERNAME + "/" + INVALID_REPO_NAME)
+                .patch("/repos/" + credential.owner() + "/" + INVALID_REPO_NAME)
                 .then()
                 .statusCode(404)
-                .body("message", equalTo("Not Found"))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Not Found"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
     }
 
     @Test
     public void editRepoWithInvalidToken() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Define the new description for the repository
         String newDescription = "Update description " + System.currentTimeMillis();
 
         // Define the request body with the new description
-        String requestBody = "{ \"description\": \"" + newDescription + "\" }";
+        byte[] requestBody = ModelCodec.encode(RepoUpdateRequest.description(newDescription));
 
         // Set up invalid Authorization Bearer header
         Header authHeader = new Header("Authorization", "Bearer " + INVALID_AUTH_TOKEN);
 
         // Send the PATCH request to update the repository description
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .body(requestBody)
                 .when()
-                .patch("/repos/" + OWNER_USERNAME + "/" + REPO_NAME)
+                .patch("/repos/" + credential.owner() + "/" + REPO_NAME)
                 .then()
                 .statusCode(401)
-                .body("message", equalTo("Bad credentials"))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Bad credentials"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
+    }
+
+    @AfterClass
+    public void tearDown() {
+        // Return the edited repository to the pool, unless leasing it failed in setUp
+        if (repoName != null) {
+            RepoFixturePool.get().release(repoName);
+        }
     }
 }
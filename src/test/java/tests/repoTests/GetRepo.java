@@ -1,66 +1,157 @@
 package tests.repoTests;
 
-import io.restassured.RestAssured;
 import io.restassured.http.Header;
-import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
-import utils.PropertyReader;
+import utils.api.ApiSpecs;
+import utils.api.ConditionalCacheFilter;
+import utils.api.GraphQlRepoLookup;
+import utils.api.RepoPages;
+import utils.auth.Credential;
+import utils.auth.CredentialPool;
+import utils.cassette.CassetteFilter;
+import utils.config.Config;
+import utils.fixtures.RepoFixturePool;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static utils.assertions.JsonExpectations.json;
 
 public class GetRepo {
 
-    public PropertyReader propertyReader = new PropertyReader("src/test/java/properties/config.properties");
+    public Config config = Config.get();
 
-    public String BASE_URL = propertyReader.getProperty("BASE_URL");
-    public String REPO_NAME = propertyReader.getProperty("REPO_NAME");
-    public String OWNER_USERNAME = propertyReader.getProperty("OWNER_USERNAME");
-    public String AUTH_TOKEN = propertyReader.getProperty("AUTH_TOKEN");
+    public String REPO_NAME = config.getString("REPO_NAME");
 
     public String INVALID_REPO_NAME = "invalidRepo";
     public String INVALID_OWNER_USERNAME = "invalidOwner";
     public String INVALID_AUTH_TOKEN = "INVALID_AUTH_TOKEN";
 
-    @BeforeClass
-    public void setUp() {
-        // Set the base URL
-        RestAssured.baseURI = BASE_URL;
+    @Test
+    public void getRepos() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
+        // Set up Authorization Bearer header
+        Header authHeader = credential.authHeader();
+
+        // Assert that the account has repositories; stops after the first one is parsed
+        try (Stream<Map<String, Object>> repos = RepoPages.stream(authHeader)) {
+            assertTrue(repos.findAny().isPresent(), "Expected " + credential.owner() + " to have repositories");
+        }
     }
 
     @Test
-    public void getRepos() {
+    public void getReposAcrossPages() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
-        // Send a GET request to get repositories
-        given()
-                .header(authHeader)
-                .when()
-                .get("/user/repos")
-                .then()
-                .statusCode(200)
-                .body("size()", greaterThan(0)); // Assert that response contains repositories
+        // Page through the repositories, following the Link header, until the test repository shows up
+        try (Stream<Map<String, Object>> repos = RepoPages.stream(authHeader, 10)) {
+            assertTrue(repos.anyMatch(repo -> REPO_NAME.equals(repo.get("name"))),
+                    "Expected " + REPO_NAME + " among the repositories of " + credential.owner());
+        }
     }
 
     @Test
     public void getSpecificRepo() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
         // Send request to get the specific repository by name
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .when()
-                .get("/repos/{owner}/{repo}", OWNER_USERNAME, REPO_NAME)
+                .get("/repos/{owner}/{repo}", credential.owner(), REPO_NAME)
                 .then()
                 .statusCode(200)
-                .body("name", equalTo(REPO_NAME))
-                .body("owner.login", equalTo(OWNER_USERNAME))
-                .body("id", notNullValue())
-                .body("node_id", notNullValue())
-                .body("full_name", equalTo(OWNER_USERNAME + "/" + REPO_NAME))
-                .body("private", equalTo(false));
+                .body(json()
+                        .at("/name", equalTo(REPO_NAME))
+                        .at("/owner/login", equalTo(credential.owner()))
+                        .at("/id", notNullValue())
+                        .at("/node_id", notNullValue())
+                        .at("/full_name", equalTo(credential.owner() + "/" + REPO_NAME))
+                        .at("/private", equalTo(false)));
+    }
+
+    @Test
+    public void getSpecificRepoRevalidated() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
+        // Set up Authorization Bearer header
+        Header authHeader = credential.authHeader();
+
+        // Read the repository twice; the second read is conditional and answered from the cache
+        for (int read = 0; read < 2; read++) {
+            long hitsBefore = ConditionalCacheFilter.threadHits();
+            given()
+                    .spec(ApiSpecs.spec())
+                    .header(authHeader)
+                    .when()
+                    .get("/repos/{owner}/{repo}", credential.owner(), REPO_NAME)
+                    .then()
+                    .statusCode(200)
+                    .body(json()
+                            .at("/name", equalTo(REPO_NAME))
+                            .at("/full_name", equalTo(credential.owner() + "/" + REPO_NAME)));
+            // Replayed responses come from the cassette and never reach the cache
+            if (read == 1 && CassetteFilter.mode() != CassetteFilter.Mode.REPLAY) {
+                assertTrue(ConditionalCacheFilter.threadHits() > hitsBefore, "Expected the repeated read to be served from the cache");
+            }
+        }
+    }
+
+    @Test
+    public void getSpecificReposInOneQuery() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
+        // Lease two repositories, so the lookups span more than one batch together with REPO_NAME
+        String firstRepo = RepoFixturePool.get().lease();
+        String secondRepo = RepoFixturePool.get().lease();
+        try {
+            String owner = RepoFixturePool.get().ownerOf(firstRepo).owner();
+            List<String> fullNames = Arrays.asList(credential.owner() + "/" + REPO_NAME, owner + "/" + firstRepo,
+                    owner + "/" + secondRepo, credential.owner() + "/" + INVALID_REPO_NAME);
+
+            // Look all of them up through GraphQL, two repositories per query
+            Map<String, String> repos = new GraphQlRepoLookup(credential.authHeader(), 2).lookup(fullNames);
+
+            // The same field assertions as a GET of each repository
+            assertThat(repos.get(credential.owner() + "/" + REPO_NAME), json()
+                    .at("/name", equalTo(REPO_NAME))
+                    .at("/owner/login", equalTo(credential.owner()))
+                    .at("/full_name", equalTo(credential.owner() + "/" + REPO_NAME))
+                    .at("/private", equalTo(false)));
+            for (String repoName : Arrays.asList(firstRepo, secondRepo)) {
+                assertThat(repos.get(owner + "/" + repoName), json()
+                        .at("/name", equalTo(repoName))
+                        .at("/owner/login", equalTo(owner))
+                        .at("/full_name", equalTo(owner + "/" + repoName))
+                        .at("/private", equalTo(false))
+                        // Pooled repos are recycled, so earlier tests may have changed the description
+                        .at("/description", notNullValue()));
+            }
+            assertNull(repos.get(credential.owner() + "/" + INVALID_REPO_NAME));
+        } finally {
+            RepoFixturePool.get().release(firstRepo);
+            RepoFixturePool.get().release(secondRepo);
+        }
     }
 
     /*** Negative Tests ***/
@@ -68,12 +159,14 @@ public class GetRepo {
     public void getReposWithoutAuthHeader() {
         // Send a GET request to get repositories without Authorization header
         given()
+                .spec(ApiSpecs.spec())
                 .when()
                 .get("/user/repos")
                 .then()
                 .statusCode(401)
-                .body("message", equalTo("Requires authentication"))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Requires authentication"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
     }
 
     @Test
@@ -83,60 +176,77 @@ public class GetRepo {
 
         // Send a GET request to get repositories with invalid Authorization header
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .when()
                 .get("/user/repos")
                 .then()
                 .statusCode(401)
-                .body("message", equalTo("Bad credentials"))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Bad credentials"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
     }
 
     @Test
     public void getSpecificRepoWithInvalidToken() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Set up invalid Authorization Bearer header
         Header authHeader = new Header("Authorization", "Bearer " + INVALID_AUTH_TOKEN);
 
         // Send request to get the specific repository with invalid Authorization header
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .when()
-                .get("/repos/{owner}/{repo}", OWNER_USERNAME, REPO_NAME)
+                .get("/repos/{owner}/{repo}", credential.owner(), REPO_NAME)
                 .then()
                 .statusCode(401)
-                .body("message", equalTo("Bad credentials"))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Bad credentials"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
     }
 
     @Test
     public void getSpecificRepoWithInvalidName() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
         // Send request to get the specific repository with invalid name
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .when()
-                .get("/repos/{owner}/{repo}", OWNER_USERNAME, INVALID_REPO_NAME)
+                .get("/repos/{owner}/{repo}", credential.owner(), INVALID_REPO_NAME)
                 .then()
                 .statusCode(404)
-                .body("message", equalTo("Not Found"))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Not Found"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
     }
 
     @Test
     public void getSpecificRepoWithInvalidOwner() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
         // Set up Authorization Bearer header
-        Header authHeader = new Header("Authorization", "Bearer " + AUTH_TOKEN);
+        Header authHeader = credential.authHeader();
 
         // Send request to get the specific repository with invalid owner
         given()
+                .spec(ApiSpecs.spec())
                 .header(authHeader)
                 .when()
                 .get("/repos/{owner}/{repo}", INVALID_OWNER_USERNAME, REPO_NAME)
                 .then()
                 .statusCode(404)
-                .body("message", equalTo("Not Found"))
-                .body("documentation_url", containsString("https://docs.github.com/"));
+                .body(json()
+                        .at("/message", equalTo("Not Found"))
+                        .at("/documentation_url", containsString("https://docs.github.com/")));
     }
 }
@@ -0,0 +1,176 @@
+package tests.resilienceTests;
+
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import utils.api.ApiSpecs;
+import utils.api.RepoNames;
+import utils.auth.Credential;
+import utils.auth.CredentialPool;
+import utils.cassette.CassetteFilter;
+import utils.fixtures.RepoCleanup;
+import utils.fixtures.RepoFixturePool;
+import utils.metrics.RequestMetrics;
+import utils.models.ModelCodec;
+import utils.models.Repo;
+import utils.models.RepoCreateRequest;
+import utils.stub.GitHubStubServer.Fault;
+import utils.stub.GitHubStubServer;
+import utils.stub.LocalStub;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.testng.Assert.assertTrue;
+import static utils.assertions.JsonExpectations.json;
+
+/**
+ * Injects failures into the in-process stub and checks the requests still succeed once retried.
+ * Skipped against any other server, since only the stub can be told to fail.
+ */
+public class TransientFailures {
+
+    // Scoped to the invocation's thread, so parallel tests never tear down each other's repos
+    public ThreadLocal<Repo> createdRepo = new ThreadLocal<>();
+
+    private GitHubStubServer stub;
+
+    @BeforeClass
+    public void setUp() {
+        stub = LocalStub.running();
+        if (stub == null || CassetteFilter.mode() != CassetteFilter.Mode.OFF) {
+            throw new SkipException("Fault injection needs the in-process stub and live requests");
+        }
+    }
+
+    @Test
+    public void getRepoRetriedAfterBadGateways() {
+        // Lease a repository and act as the identity that owns it
+        String repoName = RepoFixturePool.get().lease();
+        Credential credential = RepoFixturePool.get().ownerOf(repoName);
+
+        // Set up Authorization Bearer header
+        Header authHeader = credential.authHeader();
+        long retriesBefore = events("GET /repos/{owner}/{repo}", "retry.502");
+
+        // The first two attempts fail before the stub looks at them
+        stub.failNext("GET", "/repos/" + credential.owner() + "/" + repoName, 2, Fault.BAD_GATEWAY);
+        try {
+            given()
+                    .spec(ApiSpecs.spec())
+                    .header(authHeader)
+                    .when()
+                    .get("/repos/{owner}/{repo}", credential.owner(), repoName)
+                    .then()
+                    .statusCode(200)
+                    .body(json()
+                            .at("/name", equalTo(repoName)));
+        } finally {
+            RepoFixturePool.get().release(repoName);
+        }
+
+        assertTrue(events("GET /repos/{owner}/{repo}", "retry.502") >= retriesBefore + 2,
+                "Both bad gateways should have been retried");
+    }
+
+    @Test
+    public void createRepoVerifiedAfterBadGatewayOnceApplied() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
+        // Generate a unique repository name
+        String repoName = RepoNames.unique("my-repo");
+        byte[] requestBody = ModelCodec.encode(new RepoCreateRequest(repoName, "Created behind a bad gateway"));
+
+        // Set up Authorization Bearer header
+        Header authHeader = credential.authHeader();
+
+        // The repo is created, but the response is lost; sending the POST again would fail with 422
+        stub.failNext("POST", "/user/repos", 1, Fault.BAD_GATEWAY_AFTER_APPLY);
+        Response response = given()
+                .spec(ApiSpecs.spec())
+                .header(authHeader)
+                .body(requestBody)
+                .when()
+                .post("/user/repos")
+                .then()
+                .statusCode(201)
+                .body(json()
+                        .at("/name", equalTo(repoName))
+                        .at("/description", equalTo("Created behind a bad gateway")))
+                .extract().response();
+
+        // Extract the created repository for the teardown
+        createdRepo.set(ModelCodec.decode(response, Repo.class));
+    }
+
+    @Test
+    public void createRepoRetriedAfterReset() {
+        // Act as the credential leased for this invocation
+        Credential credential = CredentialPool.get().current();
+
+        // Generate a unique repository name
+        String repoName = RepoNames.unique("my-repo");
+        byte[] requestBody = ModelCodec.encode(new RepoCreateRequest(repoName, "Created after a reset"));
+
+        // Set up Authorization Bearer header
+        Header authHeader = credential.authHeader();
+
+        // The connection drops before the stub handles the request, so the repo has to be created by the retry
+        stub.failNext("POST", "/user/repos", 1, Fault.RESET);
+        Response response = given()
+                .spec(ApiSpecs.spec())
+                .header(authHeader)
+                .body(requestBody)
+                .when()
+                .post("/user/repos")
+                .then()
+                .statusCode(201)
+                .body(json()
+                        .at("/name", equalTo(repoName)))
+                .extract().response();
+
+        // Extract the created repository for the teardown
+        createdRepo.set(ModelCodec.decode(response, Repo.class));
+    }
+
+    @Test
+    public void deleteRepoAfterBadGatewayOnceApplied() {
+        // Lease a repository and act as the identity that owns it
+        String repoName = RepoFixturePool.get().lease();
+        Credential credential = RepoFixturePool.get().ownerOf(repoName);
+
+        // Set up Authorization Bearer header
+        Header authHeader = credential.authHeader();
+
+        // The repo is deleted, but the response is lost; the retry sees 404 and reports the delete as done
+        stub.failNext("DELETE", "/repos/" + credential.owner() + "/" + repoName, 1, Fault.BAD_GATEWAY_AFTER_APPLY);
+        try {
+            given()
+                    .spec(ApiSpecs.spec())
+                    .header(authHeader)
+                    .when()
+                    .delete("/repos/{owner}/{repo}", credential.owner(), repoName)
+                    .then()
+                    .statusCode(204);
+        } finally {
+            RepoFixturePool.get().consumed(repoName);
+        }
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        // Queue the repository that was created during the test for asynchronous deletion, as its owner
+        Repo repo = createdRepo.get();
+        createdRepo.remove();
+        if (repo != null && repo.getName() != null) {
+            RepoCleanup.get().delete(repo.getOwner().getLogin(), repo.getName());
+        }
+    }
+
+    private static long events(String endpoint, String event) {
+        return RequestMetrics.current().events(endpoint).getOrDefault(event, 0L);
+    }
+}
@@ -0,0 +1,105 @@
+package tests.unitTests;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+import utils.cassette.Cassette;
+import utils.cassette.Interaction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * Writing a {@link Cassette} and replaying it through its memory-mapped, hash-sorted index.
+ */
+public class CassetteIndex {
+
+    @Test
+    public void replaysEveryRecordedKey() throws IOException {
+        Cassette recording = Cassette.empty();
+        for (int i = 0; i < 200; i++) {
+            recording.record("GET /repos/owner/repo" + i, interaction(200, "{\"id\":" + i + "}"));
+        }
+
+        Cassette replay = reopen(recording);
+
+        // 200 keys spread over the sorted index, each found by its own binary search
+        for (int i = 199; i >= 0; i--) {
+            assertEquals(body(replay.replay("GET /repos/owner/repo" + i)), "{\"id\":" + i + "}");
+        }
+        assertNull(replay.replay("GET /repos/owner/unknown"));
+    }
+
+    @Test
+    public void repeatedKeyReplaysInOrderThenRepeatsTheLast() throws IOException {
+        Cassette recording = Cassette.empty();
+        recording.record("DELETE /repos/owner/repo", interaction(204, ""));
+        recording.record("DELETE /repos/owner/repo", interaction(404, "{\"message\":\"Not Found\"}"));
+
+        Cassette replay = reopen(recording);
+
+        assertEquals(replay.replay("DELETE /repos/owner/repo").toResponse(Collections.emptyList()).statusCode(), 204);
+        assertEquals(replay.replay("DELETE /repos/owner/repo").toResponse(Collections.emptyList()).statusCode(), 404);
+        assertEquals(replay.replay("DELETE /repos/owner/repo").toResponse(Collections.emptyList()).statusCode(), 404);
+    }
+
+    @Test
+    public void generatedNamesAreReplayedAsTheReplayingRunsNames() throws IOException {
+        Cassette recording = Cassette.empty();
+        List<String> recordedNames = Collections.singletonList("my-repo_r1_1");
+        recording.record("POST /user/repos {{0}}", Interaction.recordedFrom(
+                response(201, "{\"name\":\"my-repo_r1_1\"}"), recordedNames));
+
+        Cassette replay = reopen(recording);
+
+        Response replayed = replay.replay("POST /user/repos {{0}}").toResponse(Arrays.asList("my-repo_r2_7"));
+        assertEquals(replayed.asString(), "{\"name\":\"my-repo_r2_7\"}");
+    }
+
+    @Test
+    public void emptyCassetteReplaysNothing() {
+        assertNull(Cassette.empty().replay("GET /user/repos"));
+    }
+
+    @Test
+    public void rejectsAFileThatIsNotACassette() throws IOException {
+        Path file = Files.createTempFile("cassette", ".bin");
+        try {
+            Files.write(file, new byte[12]);
+            expectThrows(IllegalStateException.class, () -> Cassette.open(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Cassette reopen(Cassette recording) throws IOException {
+        Path file = Files.createTempFile("cassette", ".bin");
+        file.toFile().deleteOnExit();
+        recording.write(file);
+        return Cassette.open(file);
+    }
+
+    private static Interaction interaction(int status, String body) {
+        return Interaction.recordedFrom(response(status, body), Collections.emptyList());
+    }
+
+    private static Response response(int status, String body) {
+        return new ResponseBuilder().setStatusCode(status)
+                .setHeaders(new Headers(new Header("Content-Type", "application/json; charset=utf-8")))
+                .setBody(body).build();
+    }
+
+    private static String body(Interaction interaction) {
+        return interaction.toResponse(Collections.emptyList()).asString();
+    }
+}
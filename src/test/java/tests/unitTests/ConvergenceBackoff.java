@@ -0,0 +1,90 @@
+package tests.unitTests;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+import utils.api.ReadAfterWrite;
+import utils.config.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * The backoff between the reads of {@link ReadAfterWrite#until}, with reads that turn fresh after a set number
+ * of stale ones. Jitter only ever shortens a delay to half of it, so the gaps are checked against that lower bound.
+ * Every test uses an operation name of its own, so nothing is learnt from other tests.
+ */
+public class ConvergenceBackoff {
+
+    private static final long MIN_DELAY_MILLIS = Config.get().getLong("CONSISTENCY_MIN_DELAY_MS");
+    private static final long MAX_DELAY_MILLIS = Config.get().getLong("CONSISTENCY_MAX_DELAY_MS");
+
+    @Test
+    public void freshReadReturnsAtOnce() {
+        StaleReads reads = new StaleReads(0);
+
+        Response response = ReadAfterWrite.until(operation("fresh"), reads, r -> r.statusCode() == 200);
+
+        assertEquals(response.statusCode(), 200);
+        assertEquals(reads.times.size(), 1);
+    }
+
+    @Test
+    public void delaysDoubleWhileReadsAreStale() {
+        StaleReads reads = new StaleReads(3);
+
+        ReadAfterWrite.until(operation("doubling"), reads, r -> r.statusCode() == 200);
+
+        assertEquals(reads.times.size(), 4);
+        for (int gap = 0; gap < 3; gap++) {
+            long expectedAtLeast = Math.min(MAX_DELAY_MILLIS, MIN_DELAY_MILLIS << gap) / 2;
+            assertTrue(reads.gapMillis(gap) >= expectedAtLeast, "gap " + gap + ": " + reads.gapMillis(gap) + " ms");
+        }
+    }
+
+    @Test
+    public void firstDelayIsLearntFromEarlierConvergence() {
+        String operation = operation("learning");
+        StaleReads first = new StaleReads(4);
+        ReadAfterWrite.until(operation, first, r -> r.statusCode() == 200);
+        long convergedMillis = TimeUnit.NANOSECONDS.toMillis(first.times.get(4) - first.times.get(0));
+
+        StaleReads reads = new StaleReads(1);
+        ReadAfterWrite.until(operation, reads, r -> r.statusCode() == 200);
+
+        // Starting from the minimum instead, this gap could be as short as half of it
+        long expectedAtLeast = Math.min(MAX_DELAY_MILLIS, convergedMillis) / 2;
+        assertTrue(expectedAtLeast > MIN_DELAY_MILLIS / 2, convergedMillis + " ms to converge");
+        assertTrue(reads.gapMillis(0) >= expectedAtLeast, reads.gapMillis(0) + " ms, expected " + expectedAtLeast);
+    }
+
+    private static String operation(String name) {
+        return "unit " + name + " " + System.nanoTime();
+    }
+
+    // Answers 404 a given number of times, then 200, and notes when each read happened
+    private static final class StaleReads implements Supplier<Response> {
+        final List<Long> times = new ArrayList<>();
+        private final int stale;
+
+        StaleReads(int stale) {
+            this.stale = stale;
+        }
+
+        @Override
+        public Response get() {
+            times.add(System.nanoTime());
+            int status = times.size() > stale ? 200 : 404;
+            return new ResponseBuilder().setStatusCode(status).setBody("{}").build();
+        }
+
+        long gapMillis(int gap) {
+            return TimeUnit.NANOSECONDS.toMillis(times.get(gap + 1) - times.get(gap));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package tests.unitTests;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+import utils.auth.Credential;
+import utils.auth.CredentialPool;
+import utils.auth.CredentialPool.Selection;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Which credential a {@link CredentialPool} hands out under each CREDENTIAL_SELECTION strategy.
+ */
+public class CredentialSelection {
+
+    private final Credential alice = new Credential("alice", "token-a");
+    private final Credential bob = new Credential("bob", "token-b");
+    private final Credential carol = new Credential("carol", "token-c");
+
+    @Test
+    public void leastUsedSpreadsActiveLeases() {
+        CredentialPool pool = new CredentialPool(Arrays.asList(alice, bob, carol), Selection.LEAST_USED);
+
+        CredentialPool.Lease first = pool.acquire();
+        assertEquals(pool.current(), alice);
+        CredentialPool.Lease second = pool.acquire();
+        assertEquals(pool.current(), bob);
+        CredentialPool.Lease third = pool.acquire();
+        assertEquals(pool.current(), carol);
+
+        // bob is the only one without an active lease again
+        second.close();
+        CredentialPool.Lease fourth = pool.acquire();
+        assertEquals(pool.current(), bob);
+
+        fourth.close();
+        third.close();
+        first.close();
+    }
+
+    @Test
+    public void leastUsedBreaksTiesOnRequests() {
+        CredentialPool pool = new CredentialPool(Arrays.asList(alice, bob), Selection.LEAST_USED);
+        pool.onResponse(alice.authHeader().getValue(), response(null, null));
+
+        CredentialPool.Lease lease = pool.acquire();
+        assertEquals(pool.current(), bob);
+        lease.close();
+    }
+
+    @Test
+    public void quotaPrefersMostRemainingPerLease() {
+        CredentialPool pool = new CredentialPool(Arrays.asList(alice, bob), Selection.QUOTA);
+        long reset = System.currentTimeMillis() / 1000 + 3600;
+        pool.onResponse(alice.authHeader().getValue(), response("1000", String.valueOf(reset)));
+        pool.onResponse(bob.authHeader().getValue(), response("600", String.valueOf(reset)));
+
+        CredentialPool.Lease first = pool.acquire();
+        assertEquals(pool.current(), alice);
+        // With one lease out, alice has 500 left per lease against bob's 600
+        CredentialPool.Lease second = pool.acquire();
+        assertEquals(pool.current(), bob);
+
+        second.close();
+        first.close();
+    }
+
+    @Test
+    public void quotaOfAnExpiredWindowCountsAsUntouched() {
+        CredentialPool pool = new CredentialPool(Arrays.asList(alice, bob), Selection.QUOTA);
+        long now = System.currentTimeMillis() / 1000;
+        pool.onResponse(alice.authHeader().getValue(), response("4000", String.valueOf(now + 3600)));
+        pool.onResponse(bob.authHeader().getValue(), response("10", String.valueOf(now - 60)));
+
+        CredentialPool.Lease lease = pool.acquire();
+        assertEquals(pool.current(), bob);
+        lease.close();
+    }
+
+    @Test
+    public void closedLeaseRestoresThePreviousCredential() {
+        CredentialPool pool = new CredentialPool(Arrays.asList(alice, bob), Selection.LEAST_USED);
+        // The thread already acts as whatever the CredentialListener leased for this test
+        Credential before = pool.current();
+        CredentialPool.Lease outer = pool.acquire();
+        CredentialPool.Lease inner = pool.acquire();
+        assertEquals(pool.current(), bob);
+
+        inner.close();
+        assertEquals(pool.current(), alice);
+        outer.close();
+        assertEquals(pool.current(), before);
+    }
+
+    private static Response response(String remaining, String reset) {
+        Headers headers = remaining == null
+                ? new Headers()
+                : new Headers(new Header("X-RateLimit-Remaining", remaining), new Header("X-RateLimit-Reset", reset),
+                new Header("X-RateLimit-Resource", "core"));
+        return new ResponseBuilder().setStatusCode(200).setHeaders(headers).setBody("{}").build();
+    }
+}
@@ -0,0 +1,118 @@
+package tests.unitTests;
+
+import org.testng.annotations.Test;
+import utils.flaky.FlakyHistory;
+import utils.flaky.FlakyHistory.Outcome;
+import utils.flaky.FlakyTestListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Scoring and quarantine decisions of the {@link FlakyHistory}, and the invocation keys it is indexed by.
+ * Every test works on its own history file, so they can run in parallel.
+ */
+public class FlakyQuarantine {
+
+    private static final String KEY = "tests.repoTests.EditRepo#editRepo";
+
+    @Test
+    public void flakyRunRaisesScore() throws IOException {
+        Path file = Files.createTempFile("flaky-history", ".properties");
+        try {
+            FlakyHistory history = new FlakyHistory(file, 0.5, 10, 0.25);
+
+            history.merge(Collections.singletonMap(KEY, Outcome.PASSED));
+            assertTrue(lines(file).contains(KEY + "=1,0,0,0.000"), lines(file).toString());
+
+            // Failed, then passed on a rerun
+            history.merge(Collections.singletonMap(KEY, Outcome.FLAKY));
+            assertTrue(lines(file).contains(KEY + "=2,1,0,0.500"), lines(file).toString());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void alwaysFailingTestIsNotQuarantined() throws IOException {
+        Path file = Files.createTempFile("flaky-history", ".properties");
+        try {
+            FlakyHistory history = new FlakyHistory(file, 0.5, 2, 0.25);
+
+            for (int run = 0; run < 5; run++) {
+                assertEquals(history.merge(Collections.singletonMap(KEY, Outcome.FAILED)), Collections.emptyList());
+            }
+            assertTrue(history.quarantined().isEmpty());
+            assertTrue(lines(file).contains(KEY + "=5,0,5,0.000"), lines(file).toString());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void quarantinedOnceSeenInMinRuns() throws IOException {
+        Path file = Files.createTempFile("flaky-history", ".properties");
+        try {
+            FlakyHistory history = new FlakyHistory(file, 0.5, 3, 0.25);
+
+            // Scores above the threshold from the first run, but has not been seen often enough yet
+            assertTrue(history.merge(Collections.singletonMap(KEY, Outcome.FLAKY)).isEmpty());
+            assertTrue(history.merge(Collections.singletonMap(KEY, Outcome.FLAKY)).isEmpty());
+            assertTrue(history.quarantined().isEmpty());
+
+            List<String> changes = history.merge(Collections.singletonMap(KEY, Outcome.FLAKY));
+            assertEquals(changes.size(), 1);
+            assertTrue(changes.get(0).startsWith("quarantined " + KEY), changes.get(0));
+            assertEquals(history.quarantined(), Collections.singleton(KEY));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void releasedBelowHalfTheQuarantineScore() throws IOException {
+        Path file = Files.createTempFile("flaky-history", ".properties");
+        try {
+            FlakyHistory history = new FlakyHistory(file, 0.5, 1, 0.4);
+            history.merge(Collections.singletonMap(KEY, Outcome.FLAKY));
+            assertEquals(history.quarantined(), Collections.singleton(KEY));
+
+            // 0.25 is below the quarantine score but not below half of it
+            assertTrue(history.merge(Collections.singletonMap(KEY, Outcome.PASSED)).isEmpty());
+            assertEquals(history.quarantined(), Collections.singleton(KEY));
+
+            List<String> changes = history.merge(Collections.singletonMap(KEY, Outcome.PASSED));
+            assertEquals(changes.size(), 1);
+            assertTrue(changes.get(0).startsWith("released " + KEY), changes.get(0));
+            assertTrue(history.quarantined().isEmpty());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void keyIsStableForDataProviderRows() {
+        String className = "tests.repoTests.EditRepo";
+
+        // Rows are built afresh for every run, so equal contents must give equal keys
+        String row = FlakyTestListener.key(className, "editRepoVariant", new Object[]{"name", new String[]{"a", "b"}});
+        assertEquals(FlakyTestListener.key(className, "editRepoVariant", new Object[]{"name", new String[]{"a", "b"}}), row);
+        assertTrue(row.matches("tests\\.repoTests\\.EditRepo#editRepoVariant\\[[0-9a-f]{8}]"), row);
+
+        assertNotEquals(FlakyTestListener.key(className, "editRepoVariant", new Object[]{"name", new String[]{"a", "c"}}), row);
+        assertEquals(FlakyTestListener.key(className, "editRepo", new Object[0]), className + "#editRepo");
+        assertEquals(FlakyTestListener.key(className, "editRepo", null), className + "#editRepo");
+    }
+
+    private static List<String> lines(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,90 @@
+package tests.unitTests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.Test;
+import utils.api.GraphQlRepoLookup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * The aliased query {@link GraphQlRepoLookup} sends for a batch, and how it reads the answer back.
+ */
+public class GraphQlBatching {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<String> NAMES = Arrays.asList("alice/one", "bob/two");
+
+    @Test
+    public void aliasesEveryRepoWithItsOwnVariables() {
+        Map<String, Object> request = GraphQlRepoLookup.request(NAMES);
+
+        assertEquals(request.get("query"), "query($owner0: String!, $name0: String!, $owner1: String!, $name1: String!) {"
+                + " repo0: repository(owner: $owner0, name: $name0) { ...RepoFields }"
+                + " repo1: repository(owner: $owner1, name: $name1) { ...RepoFields } }"
+                + " fragment RepoFields on Repository { name owner { login } nameWithOwner isPrivate description }");
+        Map<String, Object> variables = new LinkedHashMap<>();
+        variables.put("owner0", "alice");
+        variables.put("name0", "one");
+        variables.put("owner1", "bob");
+        variables.put("name1", "two");
+        assertEquals(request.get("variables"), variables);
+    }
+
+    @Test
+    public void namesOnlyTravelAsVariables() {
+        Map<String, Object> request = GraphQlRepoLookup.request(Collections.singletonList("alice/we\"ird } name"));
+
+        assertFalse(((String) request.get("query")).contains("we\"ird"));
+        assertEquals(((Map<?, ?>) request.get("variables")).get("name0"), "we\"ird } name");
+    }
+
+    @Test
+    public void rejectsNamesWithoutOwner() {
+        for (String name : Arrays.asList("alice", "/one", "alice/")) {
+            expectThrows(IllegalArgumentException.class, () -> GraphQlRepoLookup.request(Collections.singletonList(name)));
+        }
+    }
+
+    @Test
+    public void notFoundRepoReadsAsNull() throws IOException {
+        Map<?, ?> body = MAPPER.readValue("{\"data\":{"
+                + "\"repo0\":{\"name\":\"one\",\"owner\":{\"login\":\"alice\"},\"nameWithOwner\":\"alice/one\","
+                + "\"isPrivate\":false,\"description\":null},"
+                + "\"repo1\":null},"
+                + "\"errors\":[{\"type\":\"NOT_FOUND\",\"path\":[\"repo1\"],"
+                + "\"message\":\"Could not resolve to a Repository with the name 'bob/two'.\"}]}", Map.class);
+
+        Map<String, String> repos = GraphQlRepoLookup.results(NAMES, body);
+
+        assertEquals(repos.keySet(), new LinkedHashSet<>(NAMES));
+        Map<?, ?> one = MAPPER.readValue(repos.get("alice/one"), Map.class);
+        assertEquals(one.get("full_name"), "alice/one");
+        assertEquals(one.get("owner"), Collections.singletonMap("login", "alice"));
+        assertEquals(one.get("private"), false);
+        assertNull(repos.get("bob/two"));
+    }
+
+    @Test
+    public void otherErrorsFailTheLookup() throws IOException {
+        Map<?, ?> body = MAPPER.readValue("{\"data\":null,"
+                + "\"errors\":[{\"type\":\"RATE_LIMITED\",\"message\":\"API rate limit exceeded\"}]}", Map.class);
+
+        expectThrows(IllegalStateException.class, () -> GraphQlRepoLookup.results(NAMES, body));
+    }
+
+    @Test
+    public void missingDataFailsTheLookup() {
+        expectThrows(IllegalStateException.class, () -> GraphQlRepoLookup.results(NAMES, Collections.emptyMap()));
+    }
+}
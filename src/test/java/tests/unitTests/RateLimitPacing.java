@@ -0,0 +1,136 @@
+package tests.unitTests;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+import utils.api.RateLimitScheduler;
+import utils.api.RateLimitScheduler.TokenBucket;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * The {@link RateLimitScheduler}'s token bucket, driven with explicit clock readings, and how rate-limited
+ * responses block the scheduler.
+ */
+public class RateLimitPacing {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void burstThenSpacedByRefill() {
+        TokenBucket bucket = new TokenBucket(2, 1);
+        long now = System.nanoTime();
+
+        assertEquals(bucket.reserve(now), 0);
+        assertEquals(bucket.reserve(now), 0);
+        // Each caller beyond the burst reserves the next token and waits for it
+        assertEquals(bucket.reserve(now), SECOND);
+        assertEquals(bucket.reserve(now), 2 * SECOND);
+    }
+
+    @Test
+    public void refillsOverTime() {
+        TokenBucket bucket = new TokenBucket(1, 2);
+        long now = System.nanoTime();
+
+        assertEquals(bucket.reserve(now), 0);
+        assertEquals(bucket.reserve(now), SECOND / 2);
+        assertEquals(bucket.reserve(now + 2 * SECOND), 0);
+    }
+
+    @Test
+    public void blockedUntilTheBlockExpires() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        long now = System.nanoTime();
+
+        bucket.blockFor(5 * SECOND, now);
+        assertEquals(bucket.reserve(now + SECOND), 4 * SECOND);
+        assertEquals(bucket.reserve(now + 6 * SECOND), 0);
+    }
+
+    @Test
+    public void resizeSpreadsTheReserveUntilTheReset() {
+        TokenBucket bucket = new TokenBucket(1000, 0);
+        long now = System.nanoTime();
+
+        // 50 requests above the reserve of 100 are free, the reserve refills at 100 per 50 s
+        bucket.resize(150, 100, 50, now);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(bucket.reserve(now), 0);
+        }
+        assertEquals(bucket.reserve(now), SECOND / 2);
+    }
+
+    @Test
+    public void exhaustedQuotaBlocksUntilTheReset() {
+        TokenBucket bucket = new TokenBucket(1000, 0);
+        long now = System.nanoTime();
+
+        bucket.resize(0, 100, 30, now);
+        assertEquals(bucket.reserve(now), 30 * SECOND);
+    }
+
+    @Test
+    public void bareRateLimitBacksOffByDefault() {
+        RateLimitScheduler scheduler = new RateLimitScheduler(100, 0, 0, 1);
+        RateLimitScheduler.resetWaited();
+
+        // A 403 about permissions is not rate limiting and does not hold anything up
+        scheduler.onResponse("unit", "core", false, response(403));
+        scheduler.acquire("unit", "core", false);
+        assertEquals(RateLimitScheduler.waitedNanos(), 0);
+
+        // A 429 without Retry-After or X-RateLimit-* headers waits the default back-off
+        scheduler.onResponse("unit", "core", false, response(429));
+        scheduler.acquire("unit", "core", false);
+        long waited = RateLimitScheduler.waitedNanos();
+        assertTrue(waited > SECOND / 2 && waited <= SECOND, waited + " ns");
+    }
+
+    @Test
+    public void retryAfterAsHttpDateIsReadAgainstTheServerDate() {
+        RateLimitScheduler scheduler = new RateLimitScheduler(100, 0, 0, 60);
+        RateLimitScheduler.resetWaited();
+        // The server's clock is a day off, so only the distance between the two dates counts
+        ZonedDateTime serverNow = ZonedDateTime.now(ZoneOffset.UTC).minusDays(1);
+
+        scheduler.onResponse("unit", "core", false, response(429,
+                new Header("Date", serverNow.format(DateTimeFormatter.RFC_1123_DATE_TIME)),
+                new Header("Retry-After", serverNow.plusSeconds(1).format(DateTimeFormatter.RFC_1123_DATE_TIME))));
+        scheduler.acquire("unit", "core", false);
+
+        long waited = RateLimitScheduler.waitedNanos();
+        assertTrue(waited > SECOND / 2 && waited <= SECOND, waited + " ns");
+    }
+
+    @Test
+    public void malformedHeadersFallBackToTheDefaultBackOff() {
+        RateLimitScheduler scheduler = new RateLimitScheduler(100, 0, 0, 1);
+        RateLimitScheduler.resetWaited();
+
+        scheduler.onResponse("unit", "core", false, response(429, new Header("Retry-After", "soon"),
+                new Header("X-RateLimit-Limit", "n/a"), new Header("X-RateLimit-Remaining", ""),
+                new Header("X-RateLimit-Reset", "tomorrow")));
+        scheduler.acquire("unit", "core", false);
+
+        long waited = RateLimitScheduler.waitedNanos();
+        assertTrue(waited > SECOND / 2 && waited <= SECOND, waited + " ns");
+    }
+
+    private static Response response(int status, Header... headers) {
+        List<Header> all = new ArrayList<>(Arrays.asList(headers));
+        all.add(new Header("Content-Type", "application/json"));
+        return new ResponseBuilder().setStatusCode(status).setHeaders(new Headers(all)).setBody("{}").build();
+    }
+}
@@ -0,0 +1,42 @@
+package tests.unitTests;
+
+import org.testng.annotations.Test;
+import utils.api.RepoNames;
+import utils.fixtures.RepoReaper;
+
+import java.time.Duration;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Which repository names the {@link RepoReaper} treats as left behind by test runs.
+ */
+public class ReaperNames {
+
+    private final RepoReaper reaper = new RepoReaper(new String[]{"testRepo", "my-repo", "my-repo2"}, Duration.ofHours(1));
+
+    @Test
+    public void matchesNamesGeneratedByAnyRun() {
+        assertTrue(reaper.isGenerated(RepoNames.unique("testRepo")));
+        assertTrue(reaper.isGenerated(RepoNames.unique("my-repo")));
+        assertTrue(reaper.isGenerated("my-repo2_lq3xk9z1a_17"));
+    }
+
+    @Test
+    public void matchesNamesLeftByOlderVersionsOfTheSuite() {
+        assertTrue(reaper.isGenerated("testRepo_1700000000000"));
+        assertTrue(reaper.isGenerated("my-repo"));
+        assertTrue(reaper.isGenerated("my-repo2"));
+    }
+
+    @Test
+    public void leavesOtherRepositoriesAlone() {
+        assertFalse(reaper.isGenerated("testRepo"));
+        assertFalse(reaper.isGenerated("testRepo_123"));
+        assertFalse(reaper.isGenerated("my-repository-notes"));
+        assertFalse(reaper.isGenerated("my-repo3"));
+        assertFalse(reaper.isGenerated("my-repo_notes"));
+        assertFalse(reaper.isGenerated("old-testRepo_1700000000000"));
+    }
+}
@@ -0,0 +1,86 @@
+package tests.unitTests;
+
+import org.testng.annotations.Test;
+import utils.assertions.JsonSchema;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * Streaming validation of response bodies against the compiled schemas in src/test/resources/schemas.
+ */
+public class SchemaValidation {
+
+    private static final String REPO = "{\"id\":1,\"node_id\":\"R_1\",\"name\":\"testRepo\",\"full_name\":\"owner/testRepo\","
+            + "\"private\":false,\"owner\":{\"login\":\"owner\",\"id\":2,\"type\":\"User\"},"
+            + "\"html_url\":\"https://github.com/owner/testRepo\",\"description\":null,"
+            + "\"url\":\"https://api.github.com/repos/owner/testRepo\","
+            + "\"created_at\":\"2024-01-01T00:00:00Z\",\"updated_at\":\"2024-01-01T00:00:00Z\"";
+
+    @Test
+    public void conformingRepoHasNoErrors() {
+        // Fields the schema does not describe are skipped
+        List<String> errors = validate("repo", REPO + ",\"forks\":3,\"topics\":[\"a\",{\"b\":1}]}");
+
+        assertEquals(errors, Collections.emptyList());
+    }
+
+    @Test
+    public void reportsMissingFieldsAndWrongTypes() {
+        String body = REPO.replace("\"id\":1,", "\"id\":\"1\",").replace("\"name\":\"testRepo\",", "") + "}";
+
+        List<String> errors = validate("repo", body);
+
+        assertTrue(errors.contains("/id: expected [integer] but was string"), errors.toString());
+        assertTrue(errors.contains("/name: is required"), errors.toString());
+        assertEquals(errors.size(), 2, errors.toString());
+    }
+
+    @Test
+    public void reportsValuesOutsideTheEnum() {
+        List<String> errors = validate("repo", REPO.replace("\"User\"", "\"Alien\"") + "}");
+
+        assertEquals(errors.size(), 1, errors.toString());
+        assertTrue(errors.get(0).startsWith("/owner/type: \"Alien\" is not one of"), errors.get(0));
+    }
+
+    @Test
+    public void followsRefsIntoListItems() {
+        List<String> errors = validate("repo-list", "[" + REPO + "}," + REPO.replace("\"id\":1,", "") + "}]");
+
+        assertEquals(errors, Collections.singletonList("/1/id: is required"));
+    }
+
+    @Test
+    public void stopsAfterTenErrors() {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 20; i++) {
+            body.append(i == 0 ? "" : ",").append("{}");
+        }
+
+        List<String> errors = validate("repo-list", body.append("]").toString());
+
+        assertEquals(errors.size(), 11, errors.toString());
+        assertEquals(errors.get(10), "...");
+    }
+
+    @Test
+    public void reportsBodiesThatAreNotJson() {
+        assertEquals(validate("error", ""), Collections.singletonList("/: empty body"));
+        assertTrue(validate("error", "{\"message\":").get(0).startsWith("/: not valid JSON"));
+    }
+
+    @Test
+    public void unknownSchemaFailsFast() {
+        expectThrows(IllegalArgumentException.class, () -> JsonSchema.named("no-such-schema"));
+    }
+
+    private static List<String> validate(String schema, String body) {
+        return JsonSchema.named(schema).validate(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,72 @@
+package tests.unitTests;
+
+import org.testng.annotations.Test;
+import utils.shard.ShardPlanner;
+import utils.shard.ShardPlanner.Shard;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Longest-processing-time-first bin packing of the {@link ShardPlanner}.
+ */
+public class ShardPlanning {
+
+    @Test
+    public void longestTestsAreSpreadFirst() {
+        Map<String, Long> history = new HashMap<>();
+        history.put("a", 7L);
+        history.put("b", 5L);
+        history.put("c", 4L);
+        history.put("d", 3L);
+        history.put("e", 2L);
+        history.put("f", 1L);
+
+        List<Shard> shards = ShardPlanner.plan(Arrays.asList("f", "e", "d", "c", "b", "a"), history, 2);
+
+        // Each test goes to the shard that is shortest so far, longest test first
+        assertEquals(shards.size(), 2);
+        assertEquals(shards.get(0).tests, Arrays.asList("a", "d", "f"));
+        assertEquals(shards.get(1).tests, Arrays.asList("b", "c", "e"));
+        assertEquals(shards.get(0).estimatedMillis(), 11);
+        assertEquals(shards.get(1).estimatedMillis(), 11);
+    }
+
+    @Test
+    public void testsWithoutHistoryTakeTheMedian() {
+        Map<String, Long> history = new HashMap<>();
+        history.put("a", 100L);
+        history.put("b", 300L);
+        history.put("c", 500L);
+
+        List<Shard> shards = ShardPlanner.plan(Arrays.asList("a", "b", "c", "x"), history, 2);
+
+        // x is estimated at 300 ms and sorts after b, which has the same estimate
+        assertEquals(shards.get(0).tests, Arrays.asList("c", "a"));
+        assertEquals(shards.get(1).tests, Arrays.asList("b", "x"));
+        assertEquals(shards.get(1).estimatedMillis(), 600);
+    }
+
+    @Test
+    public void emptyShardsAreDropped() {
+        List<Shard> shards = ShardPlanner.plan(Arrays.asList("a", "b"), Collections.emptyMap(), 4);
+
+        assertEquals(shards.size(), 2);
+        assertEquals(shards.get(0).index, 1);
+        assertEquals(shards.get(1).index, 2);
+        assertEquals(shards.get(0).estimatedMillis(), 1000);
+    }
+
+    @Test
+    public void atLeastOneShard() {
+        List<Shard> shards = ShardPlanner.plan(Arrays.asList("a", "b"), Collections.emptyMap(), 0);
+
+        assertEquals(shards.size(), 1);
+        assertEquals(shards.get(0).tests, Arrays.asList("a", "b"));
+    }
+}
@@ -0,0 +1,36 @@
+package utils;
+
+import org.testng.IExecutionListener;
+import utils.auth.CredentialPool;
+import utils.cassette.CassetteFilter;
+import utils.config.Config;
+import utils.fixtures.RepoCleanup;
+import utils.fixtures.RepoFixturePool;
+import utils.stub.LocalStub;
+
+/**
+ * Brings the shared test infrastructure up before the first suite and down after the last one.
+ * TestNG does not order execution listeners, so the steps that depend on each other live here:
+ * the local stub must be up before the fixture pool provisions, and stay up until cleanup has drained.
+ */
+public class RunLifecycleListener implements IExecutionListener {
+
+    @Override
+    public void onExecutionStart() {
+        // Fail on a broken configuration before anything else starts
+        Config.get();
+        LocalStub.startIfLocal();
+        RepoFixturePool.get().warmUp();
+    }
+
+    @Override
+    public void onExecutionFinish() {
+        RepoFixturePool.get().drain();
+        RepoCleanup.get().drain();
+        if (CredentialPool.get().all().size() > 1) {
+            CredentialPool.get().report().forEach(line -> System.out.println("Credential " + line));
+        }
+        CassetteFilter.flush();
+        LocalStub.stop();
+    }
+}
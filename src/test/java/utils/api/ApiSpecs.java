@@ -0,0 +1,56 @@
+package utils.api;
+
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.http.ContentType;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.RequestSpecification;
+import utils.assertions.ContractFilter;
+import utils.cassette.CassetteFilter;
+import utils.config.Config;
+import utils.metrics.LatencyFilter;
+
+/**
+ * Request specifications shared by the repo tests. Each thread gets its own instance, so suites can run with
+ * parallel="methods" or parallel="classes" without touching the RestAssured static configuration.
+ * All instances send their requests through the configured {@link utils.transport.HttpTransport},
+ * revalidate repeated reads through the {@link ConditionalCacheFilter}, are paced by the {@link RateLimitScheduler},
+ * retried by the {@link RetryFilter} and timed by the {@link LatencyFilter}, unless the {@link CassetteFilter} is
+ * replaying them from a recording. Either way the {@link ContractFilter} checks each response against its JSON schema.
+ */
+public final class ApiSpecs {
+
+    private static final ContractFilter CONTRACT_FILTER = new ContractFilter();
+    private static final CassetteFilter CASSETTE_FILTER = new CassetteFilter();
+    private static final ConditionalCacheFilter CONDITIONAL_CACHE_FILTER = new ConditionalCacheFilter();
+    private static final LatencyFilter LATENCY_FILTER = new LatencyFilter();
+    private static final RetryFilter RETRY_FILTER = new RetryFilter();
+
+    private static final ThreadLocal<RequestSpecification> SPEC = new ThreadLocal<>();
+
+    private ApiSpecs() {
+    }
+
+    public static RequestSpecification spec() {
+        // Rebuilt when a worker override points the thread at another server
+        String baseUrl = Config.get().getString("BASE_URL");
+        RequestSpecification spec = SPEC.get();
+        if (spec == null || !baseUrl.equals(((FilterableRequestSpecification) spec).getBaseUri())) {
+            spec = build(baseUrl);
+            SPEC.set(spec);
+        }
+        return spec;
+    }
+
+    private static RequestSpecification build(String baseUrl) {
+        return new RequestSpecBuilder()
+                .setBaseUri(baseUrl)
+                .setContentType(ContentType.JSON)
+                .setConfig(HttpConnectionPool.config())
+                .addFilter(CONTRACT_FILTER)
+                .addFilter(CASSETTE_FILTER)
+                .addFilter(CONDITIONAL_CACHE_FILTER)
+                .addFilter(LATENCY_FILTER)
+                .addFilter(RETRY_FILTER)
+                .build();
+    }
+}
@@ -0,0 +1,153 @@
+package utils.api;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import utils.config.Config;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-side cache for GET responses that carry an ETag or Last-Modified. A repeated read of the same URL
+ * by the same credential is sent as a conditional request; when the server answers 304 the cached response is
+ * returned in its place, which costs no rate-limit quota and no body transfer. A successful PATCH or DELETE
+ * invalidates the entries of the URL it modifies. At most ETAG_CACHE_SIZE entries are kept; the least
+ * recently used entry is evicted first.
+ */
+public class ConditionalCacheFilter implements OrderedFilter {
+
+    private static final int CAPACITY = Config.get().getInt("ETAG_CACHE_SIZE");
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final ThreadLocal<long[]> THREAD_HITS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    // Number of responses served from the cache since the JVM started
+    public static long hits() {
+        return HITS.get();
+    }
+
+    // Responses served from the cache to requests of the calling thread, unaffected by parallel tests
+    public static long threadHits() {
+        return THREAD_HITS.get()[0];
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        String method = requestSpec.getMethod();
+        if (method.equals("PATCH") || method.equals("DELETE")) {
+            Response response = ctx.next(requestSpec, responseSpec);
+            if (response.statusCode() / 100 == 2) {
+                invalidate(URI.create(requestSpec.getURI()).getPath());
+            }
+            return response;
+        }
+        if (!method.equals("GET") || CAPACITY <= 0) {
+            return ctx.next(requestSpec, responseSpec);
+        }
+
+        String key = credentialKey(requestSpec.getHeaders().getValue("Authorization")) + " " + requestSpec.getURI();
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            if (cached.etag != null) {
+                requestSpec.header("If-None-Match", cached.etag);
+            } else {
+                requestSpec.header("If-Modified-Since", cached.lastModified);
+            }
+        }
+
+        Response response = ctx.next(requestSpec, responseSpec);
+        if (response.statusCode() == 304 && cached != null) {
+            HITS.incrementAndGet();
+            THREAD_HITS.get()[0]++;
+            return cached.toResponse();
+        }
+        if (response.statusCode() == 200 && (response.getHeader("ETag") != null || response.getHeader("Last-Modified") != null)) {
+            synchronized (entries) {
+                entries.put(key, new Entry(URI.create(requestSpec.getURI()).getPath(), response));
+            }
+        }
+        return response;
+    }
+
+    // Unlike RateLimitScheduler.identityOf, two tokens never share a key, so one cannot be served the other's response
+    private static String credentialKey(String authorization) {
+        if (authorization == null) {
+            return "anonymous";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(authorization.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private void invalidate(String path) {
+        synchronized (entries) {
+            entries.values().removeIf(entry -> entry.path.equals(path));
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 2;
+    }
+
+    private static final class Entry {
+        final String path;
+        final String etag;
+        final String lastModified;
+        final String statusLine;
+        final String contentType;
+        final List<Header> headers;
+        final byte[] body;
+
+        Entry(String path, Response response) {
+            this.path = path;
+            this.etag = response.getHeader("ETag");
+            this.lastModified = response.getHeader("Last-Modified");
+            this.statusLine = response.getStatusLine();
+            this.contentType = response.getContentType();
+            this.headers = new ArrayList<>(response.getHeaders().asList());
+            this.body = response.asByteArray();
+        }
+
+        Response toResponse() {
+            return new ResponseBuilder()
+                    .setStatusCode(200)
+                    .setStatusLine(statusLine)
+                    .setHeaders(new Headers(headers))
+                    .setContentType(contentType)
+                    .setBody(body)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package utils.api;
+
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import utils.config.Config;
+import utils.models.ModelCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Reads many repositories with one POST /graphql per GRAPHQL_BATCH_SIZE repos instead of one
+ * GET /repos/{owner}/{repo} each. Every repo is an aliased {@code repository(owner:, name:)} field of the
+ * query, with owner and name passed as variables, so names never need escaping.
+ * <p>
+ * Results come back in the shape of the REST repo JSON ({@code name}, {@code owner.login}, {@code full_name},
+ * {@code private}, {@code description}), so the assertions written for GET /repos/{owner}/{repo} apply as they are:
+ * {@code assertThat(repos.get("owner/name"), json().at("/full_name", equalTo("owner/name")))}.
+ */
+public final class GraphQlRepoLookup {
+
+    public static final String PATH = "/graphql";
+
+    private static final String FRAGMENT = "fragment RepoFields on Repository "
+            + "{ name owner { login } nameWithOwner isPrivate description }";
+
+    private final Header authHeader;
+    private final int batchSize;
+
+    public GraphQlRepoLookup(Header authHeader) {
+        this(authHeader, Config.get().getInt("GRAPHQL_BATCH_SIZE"));
+    }
+
+    public GraphQlRepoLookup(Header authHeader, int batchSize) {
+        this.authHeader = authHeader;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Looks up every "owner/name" in {@code fullNames}. The returned map keeps their order and holds the REST-shaped
+     * JSON of each repo, or null when it does not exist or is not visible to the caller.
+     */
+    public Map<String, String> lookup(List<String> fullNames) {
+        Map<String, String> repos = new LinkedHashMap<>();
+        for (int from = 0; from < fullNames.size(); from += batchSize) {
+            repos.putAll(lookupBatch(fullNames.subList(from, Math.min(fullNames.size(), from + batchSize))));
+        }
+        return repos;
+    }
+
+    private Map<String, String> lookupBatch(List<String> fullNames) {
+        Response response = given()
+                .spec(ApiSpecs.spec())
+                .header(authHeader)
+                .body(ModelCodec.encode(request(fullNames)))
+                .when()
+                .post(PATH);
+        if (response.getStatusCode() != 200) {
+            throw new IllegalStateException("GraphQL lookup failed with HTTP " + response.getStatusCode() + ": " + response.asString());
+        }
+        return results(fullNames, ModelCodec.decode(response, Map.class));
+    }
+
+    // The query and variables of one batch: repo0, repo1, ... aliased in the order of fullNames
+    public static Map<String, Object> request(List<String> fullNames) {
+        StringBuilder parameters = new StringBuilder();
+        StringBuilder fields = new StringBuilder();
+        Map<String, Object> variables = new LinkedHashMap<>();
+        for (int i = 0; i < fullNames.size(); i++) {
+            String fullName = fullNames.get(i);
+            int separator = fullName.indexOf('/');
+            if (separator <= 0 || separator == fullName.length() - 1) {
+                throw new IllegalArgumentException(fullName + " is not owner/name");
+            }
+            parameters.append(i == 0 ? "" : ", ").append("$owner").append(i).append(": String!, $name").append(i).append(": String!");
+            fields.append(" repo").append(i).append(": repository(owner: $owner").append(i).append(", name: $name").append(i)
+                    .append(") { ...RepoFields }");
+            variables.put("owner" + i, fullName.substring(0, separator));
+            variables.put("name" + i, fullName.substring(separator + 1));
+        }
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("query", "query(" + parameters + ") {" + fields + " } " + FRAGMENT);
+        request.put("variables", variables);
+        return request;
+    }
+
+    // The REST-shaped JSON per full name from the decoded response body of request(fullNames)
+    public static Map<String, String> results(List<String> fullNames, Map<?, ?> body) {
+        failOnErrors(body);
+        Map<?, ?> data = (Map<?, ?>) body.get("data");
+        if (data == null) {
+            throw new IllegalStateException("GraphQL lookup returned no data: " + body);
+        }
+        Map<String, String> repos = new LinkedHashMap<>();
+        for (int i = 0; i < fullNames.size(); i++) {
+            Map<?, ?> repo = (Map<?, ?>) data.get("repo" + i);
+            repos.put(fullNames.get(i), repo == null ? null : toRestJson(repo));
+        }
+        return repos;
+    }
+
+    // A missing repo is reported as NOT_FOUND next to a null field; anything else means the query itself failed
+    private static void failOnErrors(Map<?, ?> body) {
+        Object errors = body.get("errors");
+        if (errors instanceof List) {
+            for (Object error : (List<?>) errors) {
+                if (!(error instanceof Map) || !"NOT_FOUND".equals(((Map<?, ?>) error).get("type"))) {
+                    throw new IllegalStateException("GraphQL lookup failed: " + error);
+                }
+            }
+        }
+    }
+
+    private static String toRestJson(Map<?, ?> repo) {
+        Map<String, Object> owner = new LinkedHashMap<>();
+        owner.put("login", ((Map<?, ?>) repo.get("owner")).get("login"));
+
+        Map<String, Object> rest = new LinkedHashMap<>();
+        rest.put("name", repo.get("name"));
+        rest.put("owner", owner);
+        rest.put("full_name", repo.get("nameWithOwner"));
+        rest.put("private", repo.get("isPrivate"));
+        rest.put("description", repo.get("description"));
+        return new String(ModelCodec.encode(rest), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,120 @@
+package utils.api;
+
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import utils.config.Config;
+import utils.metrics.RequestTimings;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide keep-alive connection pool shared by every request built from {@link ApiSpecs}.
+ * RestAssured still creates a client per request, but all of them lease connections from this one manager,
+ * so the TCP and TLS handshakes are paid once per pooled connection instead of once per call.
+ */
+@SuppressWarnings("deprecation")
+public final class HttpConnectionPool {
+
+    private static final PoolingClientConnectionManager MANAGER = createManager();
+
+    private static final RestAssuredConfig CONFIG = RestAssuredConfig.config()
+            .httpClient(HttpClientConfig.httpClientConfig().httpClientFactory(HttpConnectionPool::createClient));
+
+    private HttpConnectionPool() {
+    }
+
+    public static RestAssuredConfig config() {
+        return CONFIG;
+    }
+
+    // Leased, available and pending connection counts across all routes
+    public static PoolStats stats() {
+        return MANAGER.getTotalStats();
+    }
+
+    private static DefaultHttpClient createClient() {
+        DefaultHttpClient client = new DefaultHttpClient(MANAGER);
+        // RetryFilter decides what is safe to retry; the client's own handler would silently re-send requests
+        client.setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
+
+        // Mark when the request leaves and when the response headers arrive, for time-to-first-byte
+        client.addRequestInterceptor((request, context) -> RequestTimings.requestSent());
+        client.addResponseInterceptor((response, context) -> RequestTimings.firstByteReceived());
+
+        // RestAssured never closes the response stream, so read the entity up front;
+        // a non-streaming entity lets the client hand the connection back to the pool straight away
+        client.addResponseInterceptor((response, context) -> {
+            HttpEntity entity = response.getEntity();
+            if (entity != null && entity.isStreaming()) {
+                response.setEntity(new BufferedHttpEntity(entity));
+            }
+        });
+        return client;
+    }
+
+    private static PoolingClientConnectionManager createManager() {
+        int maxPerRoute = Config.get().getInt("POOL_MAX_PER_ROUTE");
+        long idleTimeoutSeconds = Config.get().getLong("POOL_IDLE_TIMEOUT_SECONDS");
+
+        PoolingClientConnectionManager manager = new PoolingClientConnectionManager(SchemeRegistryFactory.createSystemDefault()) {
+            // Time DNS lookups and socket connects; both run on the requesting thread
+            @Override
+            protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schemeRegistry) {
+                DnsResolver dnsResolver = host -> {
+                    long start = System.nanoTime();
+                    try {
+                        return SystemDefaultDnsResolver.INSTANCE.resolve(host);
+                    } finally {
+                        RequestTimings.dnsResolved(System.nanoTime() - start);
+                    }
+                };
+                return new DefaultClientConnectionOperator(schemeRegistry, dnsResolver) {
+                    @Override
+                    public void openConnection(OperatedClientConnection connection, HttpHost target, InetAddress local,
+                                               HttpContext context, HttpParams params) throws IOException {
+                        long start = System.nanoTime();
+                        try {
+                            super.openConnection(connection, target, local, context, params);
+                        } finally {
+                            RequestTimings.connected(System.nanoTime() - start);
+                        }
+                    }
+                };
+            }
+        };
+        manager.setDefaultMaxPerRoute(maxPerRoute);
+        manager.setMaxTotal(Math.max(maxPerRoute, manager.getMaxTotal()));
+
+        // Evict connections the server has stopped keeping alive, and those idle for longer than the timeout
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(() -> {
+            manager.closeExpiredConnections();
+            manager.closeIdleConnections(idleTimeoutSeconds, TimeUnit.SECONDS);
+        }, idleTimeoutSeconds, Math.max(1, idleTimeoutSeconds / 2), TimeUnit.SECONDS);
+        return manager;
+    }
+}
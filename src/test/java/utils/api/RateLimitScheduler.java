@@ -0,0 +1,239 @@
+package utils.api;
+
+import io.restassured.response.Response;
+import utils.config.Config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces requests so a run stays inside GitHub's rate limits instead of bursting into them.
+ * Each endpoint category has a token bucket per caller identity, re-sized from the X-RateLimit-* headers
+ * of every response: a run may spend the quota above the reserve (RATE_LIMIT_RESERVE, at most a tenth of
+ * the limit) freely, and the reserve is spread evenly over the time left until the reset. Retry-After, in seconds
+ * or as an HTTP-date, blocks the category until it expires; a Retry-After that is neither, or a rate-limited
+ * response that says neither when to retry nor when the quota resets, blocks it for
+ * RATE_LIMIT_DEFAULT_BACKOFF_SECONDS, since GitHub asks for at least a minute in that case.
+ * Mutating requests additionally draw from a "content" bucket that models the secondary limit on
+ * content creation, since GitHub does not advertise that one in headers.
+ */
+public final class RateLimitScheduler {
+
+    private static final RateLimitScheduler INSTANCE = new RateLimitScheduler(
+            Config.get().getLong("RATE_LIMIT_RESERVE"),
+            Config.get().getDouble("RATE_LIMIT_CONTENT_PER_MINUTE"),
+            Config.get().getDouble("RATE_LIMIT_CONTENT_BURST"),
+            Config.get().getLong("RATE_LIMIT_DEFAULT_BACKOFF_SECONDS"));
+
+    private static final ThreadLocal<long[]> WAITED_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final long reserve;
+    private final TokenBucket content;
+    private final long defaultBackoffNanos;
+
+    public RateLimitScheduler(long reserve, double contentPerMinute, double contentBurst, long defaultBackoffSeconds) {
+        this.reserve = reserve;
+        this.content = contentPerMinute > 0 ? new TokenBucket(contentBurst, contentPerMinute / 60.0) : null;
+        this.defaultBackoffNanos = TimeUnit.SECONDS.toNanos(defaultBackoffSeconds);
+    }
+
+    public static RateLimitScheduler get() {
+        return INSTANCE;
+    }
+
+    // Time the current thread has spent waiting on the scheduler since the last reset
+    public static long waitedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(WAITED_NANOS.get()[0]);
+    }
+
+    public static long waitedNanos() {
+        return WAITED_NANOS.get()[0];
+    }
+
+    public static void resetWaited() {
+        WAITED_NANOS.get()[0] = 0;
+    }
+
+    // Rate limits are tracked per credential; the token itself is not kept. A 32-bit hash, so it only names
+    // buckets and log lines, and must not key anything that hands one caller's data to another
+    public static String identityOf(String authorization) {
+        return authorization == null ? "anonymous" : Integer.toHexString(authorization.hashCode());
+    }
+
+    public static String categoryOf(String path) {
+        if (path.startsWith("/graphql")) {
+            return "graphql";
+        }
+        if (path.startsWith("/search")) {
+            return "search";
+        }
+        return "core";
+    }
+
+    public static boolean isMutating(String method) {
+        return !method.equalsIgnoreCase("GET") && !method.equalsIgnoreCase("HEAD");
+    }
+
+    public void acquire(String identity, String category, boolean mutating) {
+        long now = System.nanoTime();
+        long waitNanos = bucket(identity, category).reserve(now);
+        if (mutating && content != null) {
+            waitNanos = Math.max(waitNanos, content.reserve(now));
+        }
+        if (waitNanos > 0) {
+            sleep(waitNanos);
+            WAITED_NANOS.get()[0] += waitNanos;
+        }
+    }
+
+    public void onResponse(String identity, String category, boolean mutating, Response response) {
+        long now = System.nanoTime();
+        TokenBucket bucket = bucket(identity, headerOr(response, "X-RateLimit-Resource", category));
+
+        // A header that does not parse counts as missing
+        Long limit = parseLong(response.getHeader("X-RateLimit-Limit"));
+        Long remaining = parseLong(response.getHeader("X-RateLimit-Remaining"));
+        Long reset = parseLong(response.getHeader("X-RateLimit-Reset"));
+        if (remaining != null && reset != null) {
+            long secondsUntilReset = Math.max(1, reset - System.currentTimeMillis() / 1000);
+            long effectiveReserve = limit == null ? reserve : Math.min(reserve, limit / 10);
+            bucket.resize(remaining, effectiveReserve, secondsUntilReset, now);
+        }
+
+        String retryAfter = response.getHeader("Retry-After");
+        if (retryAfter != null) {
+            block(bucket, mutating, retryAfterNanos(retryAfter.trim(), response.getHeader("Date")), now);
+        } else if (isRateLimited(response) && !(remaining != null && remaining == 0 && reset != null)) {
+            // Nothing says when to retry, so a resend straight away would only be limited again
+            block(bucket, mutating, defaultBackoffNanos, now);
+        }
+    }
+
+    // 429, or a 403 that carries rate-limit signals rather than a permission problem
+    public static boolean isRateLimited(Response response) {
+        int status = response.getStatusCode();
+        if (status == 429) {
+            return true;
+        }
+        return status == 403 && ("0".equals(response.getHeader("X-RateLimit-Remaining"))
+                || response.getHeader("Retry-After") != null);
+    }
+
+    // Retry-After is either delay-seconds or an HTTP-date, the latter read against the server's own Date if it sent one
+    private long retryAfterNanos(String retryAfter, String date) {
+        Long seconds = parseLong(retryAfter);
+        if (seconds != null) {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, seconds));
+        }
+        try {
+            Instant retryAt = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            Instant serverNow = date == null
+                    ? Instant.now()
+                    : ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return Math.max(0, Duration.between(serverNow, retryAt).toNanos());
+        } catch (DateTimeParseException ex) {
+            return defaultBackoffNanos;
+        }
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private void block(TokenBucket bucket, boolean mutating, long nanos, long now) {
+        bucket.blockFor(nanos, now);
+        if (mutating && content != null) {
+            content.blockFor(nanos, now);
+        }
+    }
+
+    private TokenBucket bucket(String identity, String category) {
+        return buckets.computeIfAbsent(identity + "/" + category.toLowerCase(Locale.ROOT),
+                key -> new TokenBucket(Double.MAX_VALUE, 0));
+    }
+
+    private static String headerOr(Response response, String name, String fallback) {
+        String value = response.getHeader(name);
+        return value == null ? fallback : value;
+    }
+
+    private static void sleep(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long left;
+        while ((left = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(left);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the rate limit");
+            }
+        }
+    }
+
+    /**
+     * Classic token bucket that allows the balance to go negative: every caller reserves its token up front
+     * and is told how long to wait, so concurrent threads are spaced out instead of retrying in lock-step.
+     */
+    public static final class TokenBucket {
+        private double capacity;
+        private double tokens;
+        private double refillPerSecond;
+        private long lastRefillNanos = System.nanoTime();
+        private long blockedUntilNanos;
+
+        public TokenBucket(double capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+
+        public synchronized long reserve(long now) {
+            refill(now);
+            tokens -= 1;
+            long wait = Math.max(0, blockedUntilNanos - now);
+            if (tokens < 0) {
+                long refillWait = refillPerSecond > 0
+                        ? (long) (-tokens / refillPerSecond * TimeUnit.SECONDS.toNanos(1))
+                        : TimeUnit.SECONDS.toNanos(1);
+                wait = Math.max(wait, refillWait);
+            }
+            return wait;
+        }
+
+        public synchronized void resize(long remaining, long reserve, long secondsUntilReset, long now) {
+            refill(now);
+            capacity = Math.max(1, remaining - reserve);
+            refillPerSecond = (double) Math.min(remaining, reserve) / secondsUntilReset;
+            tokens = Math.min(tokens, capacity);
+            if (remaining == 0) {
+                blockedUntilNanos = Math.max(blockedUntilNanos, now + TimeUnit.SECONDS.toNanos(secondsUntilReset));
+            }
+        }
+
+        public synchronized void blockFor(long nanos, long now) {
+            blockedUntilNanos = Math.max(blockedUntilNanos, now + nanos);
+        }
+
+        private void refill(long now) {
+            if (now > lastRefillNanos) {
+                tokens = Math.min(capacity, tokens + refillPerSecond * (now - lastRefillNanos) / TimeUnit.SECONDS.toNanos(1));
+                lastRefillNanos = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package utils.api;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+/**
+ * Reports how long each test method was held back by the {@link RateLimitScheduler}.
+ * The wait is stored on the test result as "rateLimitWaitMs" and written to the TestNG reporter output.
+ */
+public class RateLimitWaitListener implements IInvokedMethodListener {
+
+    public static final String WAIT_ATTRIBUTE = "rateLimitWaitMs";
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        RateLimitScheduler.resetWaited();
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        long waitedMillis = RateLimitScheduler.waitedMillis();
+        if (waitedMillis > 0) {
+            testResult.setAttribute(WAIT_ATTRIBUTE, waitedMillis);
+            Reporter.log(method.getTestMethod().getQualifiedName() + " waited " + waitedMillis + " ms for the rate limit", true);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package utils.api;
+
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import org.hamcrest.Matcher;
+import utils.config.Config;
+import utils.metrics.RequestMetrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Waits until a write is visible to reads. GitHub answers reads from replicas, so a GET right after a POST,
+ * PATCH or DELETE can still see the old state for a moment, and asserting on it straight away fails at random.
+ * <p>
+ * The follow-up read is sent at once and, while it is stale, repeated with jittered, doubling delays until the
+ * condition holds or CONSISTENCY_TIMEOUT_MS has passed, which fails with the last response. The first delay is
+ * the smoothed time the same operation took to converge before, clamped to CONSISTENCY_MIN_DELAY_MS and
+ * CONSISTENCY_MAX_DELAY_MS, so a lagging backend costs one or two extra reads rather than a climb from the minimum.
+ * Convergence times, timeouts and stale reads are recorded per operation in {@link RequestMetrics}.
+ */
+public final class ReadAfterWrite {
+
+    private static final long TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(Config.get().getLong("CONSISTENCY_TIMEOUT_MS"));
+    private static final long MIN_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(Config.get().getLong("CONSISTENCY_MIN_DELAY_MS"));
+    private static final long MAX_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(Config.get().getLong("CONSISTENCY_MAX_DELAY_MS"));
+
+    // Exponentially smoothed convergence time per operation, a quarter weight for every new observation
+    private static final Map<String, AtomicLong> TYPICAL_NANOS = new ConcurrentHashMap<>();
+
+    private ReadAfterWrite() {
+    }
+
+    // The repo can be read, e.g. after POST /user/repos
+    public static Response repoVisible(Header authHeader, String owner, String repo) {
+        return until("repo visible", () -> getRepo(authHeader, owner, repo), response -> response.statusCode() == 200);
+    }
+
+    // The repo reads as 404, e.g. after DELETE /repos/{owner}/{repo}
+    public static Response repoGone(Header authHeader, String owner, String repo) {
+        return until("repo gone", () -> getRepo(authHeader, owner, repo), response -> response.statusCode() == 404);
+    }
+
+    /**
+     * The repo reads as 200 with a body that matches, e.g. after a PATCH:
+     * {@code repoMatches(authHeader, owner, repo, "description updated", json().at("/description", equalTo(text)))}.
+     */
+    public static Response repoMatches(Header authHeader, String owner, String repo, String operation,
+                                       Matcher<? super String> body) {
+        return until(operation, () -> getRepo(authHeader, owner, repo),
+                response -> response.statusCode() == 200 && body.matches(response.asString()));
+    }
+
+    public static Response until(String operation, Supplier<Response> read, Predicate<Response> converged) {
+        long start = System.nanoTime();
+        long deadline = start + TIMEOUT_NANOS;
+        long delay = firstDelay(operation);
+        int reads = 0;
+        while (true) {
+            Response response = read.get();
+            reads++;
+            long now = System.nanoTime();
+            if (converged.test(response)) {
+                RequestMetrics.current().recordConvergence(operation, now - start);
+                learn(operation, now - start);
+                return response;
+            }
+            RequestMetrics.current().count(operation, "staleReads");
+            if (now >= deadline) {
+                RequestMetrics.current().recordConvergenceTimeout(operation);
+                throw new AssertionError(operation + " did not hold within " + TimeUnit.NANOSECONDS.toMillis(TIMEOUT_NANOS)
+                        + " ms (" + reads + " reads); last response " + response.statusCode() + ": " + response.asString());
+            }
+            sleep(Math.min(deadline - now, delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1)));
+            delay = Math.min(MAX_DELAY_NANOS, delay * 2);
+        }
+    }
+
+    private static Response getRepo(Header authHeader, String owner, String repo) {
+        return given()
+                .spec(ApiSpecs.spec())
+                .header(authHeader)
+                .when()
+                .get("/repos/{owner}/{repo}", owner, repo);
+    }
+
+    private static long firstDelay(String operation) {
+        AtomicLong typical = TYPICAL_NANOS.get(operation);
+        return Math.max(MIN_DELAY_NANOS, Math.min(MAX_DELAY_NANOS, typical == null ? 0 : typical.get()));
+    }
+
+    private static void learn(String operation, long nanos) {
+        TYPICAL_NANOS.computeIfAbsent(operation, key -> new AtomicLong(nanos))
+                .accumulateAndGet(nanos, (typical, observed) -> typical + (observed - typical) / 4);
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a write to become visible", ex);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package utils.api;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Generates repository names that cannot collide between parallel invocations, or between concurrent runs
+ * sharing one account. Names look like {@code <prefix>_<run id>_<sequence>}.
+ */
+public final class RepoNames {
+
+    private static final String RUN_ID = Long.toString(System.currentTimeMillis(), 36)
+            + Integer.toString(ThreadLocalRandom.current().nextInt(36 * 36 * 36), 36);
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private static final Pattern GENERATED = Pattern.compile("[A-Za-z0-9.-]+_" + RUN_ID + "_\\d+");
+
+    // Any run's id: base-36 digits, as built above
+    private static final String ANY_RUN_ID = "[0-9a-z]+";
+
+    private RepoNames() {
+    }
+
+    public static String unique(String prefix) {
+        return prefix + "_" + RUN_ID + "_" + SEQUENCE.incrementAndGet();
+    }
+
+    // Matches the names generated by this process, wherever they appear in a path or body
+    public static Pattern generatedPattern() {
+        return GENERATED;
+    }
+
+    // Matches exactly the names unique(prefix) generates in any run, e.g. to find repos a crashed run leaked
+    public static Pattern generatedPattern(String prefix) {
+        return Pattern.compile(Pattern.quote(prefix) + "_" + ANY_RUN_ID + "_\\d+");
+    }
+}
@@ -0,0 +1,142 @@
+package utils.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import utils.config.Config;
+import utils.models.JsonValues;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Lazily pages through /user/repos. Pages are linked through the Link rel="next" header; the next page is
+ * requested in the background while the current one is consumed, and each page is parsed one repository
+ * at a time. Only the current and the prefetched page are held in memory, so short-circuiting operations
+ * such as {@code anyMatch} or {@code limit(n).count()} stop paging as soon as they have their answer.
+ * Close the stream when done with it to discard the prefetched page.
+ */
+public final class RepoPages implements Iterator<Map<String, Object>>, AutoCloseable {
+
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>;\\s*rel=\"next\"");
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final ExecutorService PREFETCH = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "repo-pages-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Header authHeader;
+    private CompletableFuture<Response> nextPage;
+    private JsonParser parser;
+    private Map<String, Object> next;
+
+    private RepoPages(Header authHeader, int perPage) {
+        this.authHeader = authHeader;
+        this.nextPage = CompletableFuture.completedFuture(fetch(null, perPage));
+    }
+
+    public static Stream<Map<String, Object>> stream(Header authHeader) {
+        return stream(authHeader, 100);
+    }
+
+    public static Stream<Map<String, Object>> stream(Header authHeader, int perPage) {
+        RepoPages pages = new RepoPages(authHeader, perPage);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(pages::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = advance();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Map<String, Object> repo = next;
+        next = null;
+        return repo;
+    }
+
+    @Override
+    public void close() {
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+    }
+
+    // Reads the next repository of the current page, moving on to the next page when this one is exhausted
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> advance() {
+        try {
+            while (true) {
+                if (parser != null) {
+                    JsonToken token = parser.nextToken();
+                    if (token == JsonToken.START_OBJECT) {
+                        return (Map<String, Object>) JsonValues.read(parser, JsonValues.Decimals.DOUBLE);
+                    }
+                    parser.close();
+                    parser = null;
+                }
+                if (nextPage == null) {
+                    return null;
+                }
+                openPage(nextPage.join());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not parse a page of /user/repos", ex);
+        }
+    }
+
+    private void openPage(Response page) throws IOException {
+        if (page.statusCode() != 200) {
+            nextPage = null;
+            throw new IllegalStateException("Listing repositories failed: HTTP " + page.statusCode() + " " + page.asString());
+        }
+
+        Matcher link = NEXT_LINK.matcher(page.getHeader("Link") == null ? "" : page.getHeader("Link"));
+        if (link.find()) {
+            String url = link.group(1);
+            // Fetched as the consuming thread would, with its configuration overrides
+            nextPage = CompletableFuture.supplyAsync(Config.propagate(() -> fetch(url, 0)), PREFETCH);
+        } else {
+            nextPage = null;
+        }
+
+        parser = JSON.createParser(page.asByteArray());
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalStateException("Expected a JSON array from /user/repos, got " + page.asString());
+        }
+    }
+
+    private Response fetch(String url, int perPage) {
+        if (url != null) {
+            return given().spec(ApiSpecs.spec()).header(authHeader).when().get(url);
+        }
+        return given().spec(ApiSpecs.spec()).header(authHeader).queryParam("per_page", perPage).when().get("/user/repos");
+    }
+}
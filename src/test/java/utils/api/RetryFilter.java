@@ -0,0 +1,336 @@
+package utils.api;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import io.restassured.specification.RequestSpecification;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import utils.auth.Credential;
+import utils.auth.CredentialPool;
+import utils.config.Config;
+import utils.metrics.EndpointTemplates;
+import utils.metrics.RequestMetrics;
+import utils.models.ModelCodec;
+import utils.transport.HttpTransport;
+import utils.transport.HttpTransports;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Sends every request, routed through the {@link RateLimitScheduler}, and retries the ones that failed for
+ * reasons that go away on their own. Runs last in the chain and hands every attempt to the configured
+ * {@link HttpTransport}.
+ * <ul>
+ *     <li>Rate-limited responses are fed back to the scheduler and sent again once it lets them through,
+ *     up to RATE_LIMIT_MAX_RETRIES times.</li>
+ *     <li>502, 503, 504 and I/O errors are retried after a full-jitter exponential backoff, up to
+ *     RETRY_MAX_ATTEMPTS attempts in total. Only idempotent methods and GraphQL queries are retried blindly;
+ *     a failed POST /user/repos is retried only after a GET shows the repo was not created after all. Should that
+ *     GET have missed a repo the failed attempt did create, the resent POST answers 422 and the repo is read
+ *     again through {@link ReadAfterWrite} until it shows up.</li>
+ *     <li>With HEDGE_ENABLED, a GET still unanswered after its endpoint's p95 latency is sent a second time
+ *     and whichever answer arrives first is used. Hedged requests are not split into DNS, connect and
+ *     time-to-first-byte, since the primary attempt runs on the hedging pool.</li>
+ * </ul>
+ * Every retry and hedge is counted in {@link RequestMetrics} under the request's endpoint.
+ */
+public class RetryFilter implements OrderedFilter {
+
+    private static final int RATE_LIMIT_MAX_RETRIES = Config.get().getInt("RATE_LIMIT_MAX_RETRIES");
+    private static final int MAX_ATTEMPTS = Config.get().getInt("RETRY_MAX_ATTEMPTS");
+    private static final long BASE_DELAY_MS = Config.get().getLong("RETRY_BASE_DELAY_MS");
+    private static final long MAX_DELAY_MS = Config.get().getLong("RETRY_MAX_DELAY_MS");
+    private static final boolean HEDGE_ENABLED = Config.get().getBoolean("HEDGE_ENABLED");
+    private static final long HEDGE_MIN_DELAY_MS = Config.get().getLong("HEDGE_MIN_DELAY_MS");
+    private static final long HEDGE_MIN_SAMPLES = Config.get().getLong("HEDGE_MIN_SAMPLES");
+
+    private static final Set<Integer> TRANSIENT_STATUSES = new HashSet<>(Arrays.asList(502, 503, 504));
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList("GET", "HEAD", "OPTIONS", "PUT", "PATCH", "DELETE"));
+    private static final String CREATE_REPO_PATH = "/user/repos";
+
+    private static final HttpTransport TRANSPORT = HttpTransports.configured();
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    // Latency of single attempts per endpoint, which the hedge delay is derived from
+    private static final Map<String, Histogram> ATTEMPT_LATENCY = new ConcurrentHashMap<>();
+
+    private static final ExecutorService HEDGE_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "request-hedge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        RateLimitScheduler scheduler = RateLimitScheduler.get();
+        String authorization = requestSpec.getHeaders().getValue("Authorization");
+        String identity = RateLimitScheduler.identityOf(authorization);
+        String path = URI.create(requestSpec.getURI()).getPath();
+        String category = RateLimitScheduler.categoryOf(path);
+        String method = requestSpec.getMethod().toUpperCase(Locale.ROOT);
+        boolean mutating = RateLimitScheduler.isMutating(method);
+        boolean creatingRepo = "POST".equals(method) && CREATE_REPO_PATH.equals(path);
+        boolean retryable = IDEMPOTENT_METHODS.contains(method) || creatingRepo
+                || ("POST".equals(method) && GraphQlRepoLookup.PATH.equals(path) && !isGraphQlMutation(requestSpec.getBody()));
+        String endpoint = EndpointTemplates.of(requestSpec);
+
+        long started = System.nanoTime();
+        int rateLimited = 0;
+        int failures = 0;
+        while (true) {
+            scheduler.acquire(identity, category, mutating);
+            Response response;
+            try {
+                response = send(requestSpec, responseSpec, ctx, endpoint, "GET".equals(method));
+            } catch (Exception ex) {
+                // RestAssured rethrows I/O errors without declaring them, hence Exception rather than RuntimeException
+                if (!retryable || !isTransient(ex) || ++failures >= MAX_ATTEMPTS) {
+                    throw ex;
+                }
+                RequestMetrics.current().count(endpoint, "retry." + rootCause(ex).getClass().getSimpleName());
+                backOff(failures);
+                if (creatingRepo) {
+                    Response created = verifyCreated(requestSpec, started, false);
+                    if (created != null) {
+                        RequestMetrics.current().count(endpoint, "post.verified_created");
+                        return created;
+                    }
+                }
+                continue;
+            }
+            scheduler.onResponse(identity, category, mutating, response);
+            CredentialPool.get().onResponse(authorization, response);
+
+            if (RateLimitScheduler.isRateLimited(response)) {
+                if (rateLimited++ >= RATE_LIMIT_MAX_RETRIES) {
+                    return response;
+                }
+                RequestMetrics.current().count(endpoint, "retry.rate_limited");
+                continue;
+            }
+            if (!TRANSIENT_STATUSES.contains(response.getStatusCode()) || !retryable || ++failures >= MAX_ATTEMPTS) {
+                if (failures > 0 && creatingRepo && response.getStatusCode() == 422) {
+                    // The name is taken, most likely by a failed attempt whose repo the verifying GET did not see yet
+                    Response created = verifyCreated(requestSpec, started, true);
+                    if (created != null) {
+                        RequestMetrics.current().count(endpoint, "post.verified_created");
+                        return created;
+                    }
+                }
+                if (failures > 0 && "DELETE".equals(method) && response.getStatusCode() == 404) {
+                    // The attempt that failed had already deleted it
+                    return new ResponseBuilder().clone(response).setStatusCode(204).setStatusLine("HTTP/1.1 204 No Content")
+                            .setBody(new byte[0]).build();
+                }
+                return response;
+            }
+            RequestMetrics.current().count(endpoint, "retry." + response.getStatusCode());
+            backOff(failures);
+            if (creatingRepo) {
+                Response created = verifyCreated(requestSpec, started, false);
+                if (created != null) {
+                    RequestMetrics.current().count(endpoint, "post.verified_created");
+                    return created;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE;
+    }
+
+    private static Response send(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                                 FilterContext ctx, String endpoint, boolean hedgeable) {
+        Histogram latency = ATTEMPT_LATENCY.computeIfAbsent(endpoint, key -> new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 2));
+        if (!HEDGE_ENABLED || !hedgeable || latency.getTotalCount() < HEDGE_MIN_SAMPLES) {
+            long start = System.nanoTime();
+            Response response = TRANSPORT.send(requestSpec, responseSpec, ctx);
+            record(latency, System.nanoTime() - start);
+            return response;
+        }
+
+        long delayMillis = Math.max(HEDGE_MIN_DELAY_MS, TimeUnit.MICROSECONDS.toMillis(latency.getValueAtPercentile(95)));
+        CompletableFuture<Response> primary = CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            Response response = TRANSPORT.send(requestSpec, responseSpec, ctx);
+            record(latency, System.nanoTime() - start);
+            return response;
+        }, HEDGE_EXECUTOR);
+        try {
+            return primary.get(delayMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            // Slower than usual; race a second copy against it
+        } catch (ExecutionException ex) {
+            throw unwrap(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            primary.cancel(true);
+            throw new IllegalStateException("Interrupted while waiting for " + endpoint, ex);
+        }
+
+        RequestMetrics.current().count(endpoint, "hedge.fired");
+        CompletableFuture<Response> hedge = CompletableFuture.supplyAsync(
+                () -> TRANSPORT.get(requestSpec.getURI(), requestSpec.getHeaders()), HEDGE_EXECUTOR);
+
+        CompletableFuture<Response> first = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        primary.whenComplete((response, failure) -> complete(first, response, failure, failed));
+        hedge.whenComplete((response, failure) -> complete(first, response, failure, failed));
+        Response response;
+        try {
+            response = first.join();
+        } catch (CompletionException ex) {
+            throw unwrap(ex.getCause());
+        }
+        if (response == hedge.getNow(null)) {
+            RequestMetrics.current().count(endpoint, "hedge.won");
+        }
+        return response;
+    }
+
+    // Completes with the first response; fails only once both attempts have failed
+    private static void complete(CompletableFuture<Response> first, Response response, Throwable failure,
+                                 AtomicInteger failed) {
+        if (failure == null) {
+            first.complete(response);
+        } else if (failed.incrementAndGet() == 2) {
+            first.completeExceptionally(failure instanceof CompletionException ? failure.getCause() : failure);
+        }
+    }
+
+    private static void record(Histogram latency, long nanos) {
+        latency.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    /**
+     * Looks up the repo a failed POST /user/repos tried to create. Returns a 201 built from it when it exists
+     * and was created after the first attempt was sent, or null when the POST has to be sent again.
+     * With {@code awaitVisible}, the repo is known to exist and is read until the replicas return it.
+     */
+    private static Response verifyCreated(FilterableRequestSpecification requestSpec, long firstAttemptNanos,
+                                          boolean awaitVisible) {
+        Object name = requestedRepoName(requestSpec.getBody());
+        if (name == null) {
+            return null;
+        }
+        String authorization = requestSpec.getHeaders().getValue("Authorization");
+        // The repo would belong to whoever sent the POST
+        Credential sender = CredentialPool.get().forAuthorization(authorization);
+        String owner = (sender != null ? sender : CredentialPool.get().current()).owner();
+        Supplier<Response> lookup = () -> {
+            RequestSpecification spec = given().spec(ApiSpecs.spec());
+            if (authorization != null) {
+                spec.header("Authorization", authorization);
+            }
+            return spec.get("/repos/{owner}/{repo}", owner, name);
+        };
+        Response existing = awaitVisible
+                ? ReadAfterWrite.until("repo visible", lookup, response -> response.getStatusCode() == 200)
+                : lookup.get();
+        if (existing.getStatusCode() != 200 || !createdSince(existing, firstAttemptNanos)) {
+            return null;
+        }
+        return new ResponseBuilder().clone(existing).setStatusCode(201).setStatusLine("HTTP/1.1 201 Created").build();
+    }
+
+    // GraphQL reads are POSTs too, but as safe to repeat as a GET
+    private static boolean isGraphQlMutation(Object body) {
+        if (body == null) {
+            return false;
+        }
+        byte[] bytes = body instanceof byte[] ? (byte[]) body : body.toString().getBytes(StandardCharsets.UTF_8);
+        Object query = ModelCodec.decode(bytes, Map.class).get("query");
+        return !(query instanceof String) || ((String) query).trim().startsWith("mutation");
+    }
+
+    private static Object requestedRepoName(Object body) {
+        if (body == null) {
+            return null;
+        }
+        byte[] bytes = body instanceof byte[] ? (byte[]) body : body.toString().getBytes(StandardCharsets.UTF_8);
+        return ModelCodec.decode(bytes, Map.class).get("name");
+    }
+
+    // Compared on the server's clock: created_at must not be older than the time since the first attempt
+    private static boolean createdSince(Response existing, long firstAttemptNanos) {
+        String createdAt = existing.path("created_at");
+        String date = existing.getHeader("Date");
+        if (createdAt == null || date == null) {
+            return true;
+        }
+        try {
+            Instant serverNow = ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - firstAttemptNanos);
+            // Both timestamps have whole-second precision
+            Instant earliest = serverNow.minusMillis(elapsedMillis + 2000);
+            return !Instant.parse(createdAt).isBefore(earliest);
+        } catch (DateTimeParseException ex) {
+            return true;
+        }
+    }
+
+    private static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Throwable rootCause(Throwable failure) {
+        Throwable cause = failure;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static RuntimeException unwrap(Throwable failure) {
+        return failure instanceof RuntimeException ? (RuntimeException) failure : new CompletionException(failure);
+    }
+
+    // Full jitter: a random wait between zero and the capped exponential delay
+    private static void backOff(int failures) {
+        long ceiling = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(failures - 1, 20));
+        long millis = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", ex);
+        }
+    }
+}
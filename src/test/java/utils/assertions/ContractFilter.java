@@ -0,0 +1,75 @@
+package utils.assertions;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import utils.config.Config;
+import utils.metrics.EndpointTemplates;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks every response against the {@link JsonSchema} of its endpoint before the test sees it: the repo
+ * schema for successful creates, reads and edits of a repo, the repo-list schema for listings and the error
+ * schema for every 4xx. Other endpoints and bodiless responses (204, 304) are passed through unchecked.
+ * <p>
+ * Runs outside all other filters, so it sees the response the test gets, whether it came from the server, a
+ * retry, the conditional cache or a cassette. A violation fails the request with an AssertionError that
+ * lists the offending JSON pointers. Turned off with CONTRACT_VALIDATION=false.
+ */
+public class ContractFilter implements OrderedFilter {
+
+    private static final boolean ENABLED = Config.get().getBoolean("CONTRACT_VALIDATION");
+
+    private static final JsonSchema ERROR = JsonSchema.named("error");
+    private static final Map<String, JsonSchema> SUCCESS = new HashMap<>();
+
+    static {
+        JsonSchema repo = JsonSchema.named("repo");
+        JsonSchema repoList = JsonSchema.named("repo-list");
+        SUCCESS.put("POST /user/repos", repo);
+        SUCCESS.put("GET /repos/{owner}/{repo}", repo);
+        SUCCESS.put("PATCH /repos/{owner}/{repo}", repo);
+        SUCCESS.put("GET /user/repos", repoList);
+        SUCCESS.put("GET /users/{username}/repos", repoList);
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        Response response = ctx.next(requestSpec, responseSpec);
+        if (!ENABLED) {
+            return response;
+        }
+        // Templated from the URI, so path parameters named differently from the templates still match
+        String endpoint = EndpointTemplates.of(requestSpec.getMethod(), null, requestSpec.getURI());
+        JsonSchema schema = schemaFor(endpoint, response.getStatusCode());
+        if (schema != null) {
+            List<String> violations = schema.validate(response.asByteArray());
+            if (!violations.isEmpty()) {
+                throw new AssertionError(endpoint + " answered " + response.getStatusCode() + " with a body that breaks the "
+                        + schema.name() + " schema:\n  " + String.join("\n  ", violations) + "\nBody: " + response.asString());
+            }
+        }
+        return response;
+    }
+
+    private static JsonSchema schemaFor(String endpoint, int status) {
+        if (status == 204 || status == 304 || endpoint.endsWith(" /graphql")) {
+            return null;
+        }
+        if (status >= 200 && status < 300) {
+            return SUCCESS.get(endpoint);
+        }
+        return status >= 400 && status < 500 ? ERROR : null;
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 4;
+    }
+}
@@ -0,0 +1,203 @@
+package utils.assertions;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+import utils.models.JsonValues;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hamcrest matcher over a JSON response body that checks several values in one streaming pass.
+ * Paths are JSON pointers ({@code /owner/login}, {@code /errors/0/code}); each one is compiled into segments
+ * once per JVM, and the expectations of a matcher are merged into a tree of those segments. The parser
+ * descends only into subtrees that hold an expected path, skips everything else, and stops reading once
+ * every expected value has been seen. A path that is absent from the body is matched against null.
+ * Instances remember their last mismatch for the failure message, so build one per assertion.
+ * <p>
+ * Use in place of several GPath matchers: {@code .body(json().at("/name", equalTo(name)).at("/private", equalTo(false)))}
+ */
+public final class JsonExpectations extends TypeSafeDiagnosingMatcher<String> {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final Map<String, String[]> COMPILED = new ConcurrentHashMap<>();
+
+    private final Node root = new Node();
+    private final List<Expectation> expectations = new ArrayList<>();
+    private String lastMismatch;
+
+    private JsonExpectations() {
+    }
+
+    public static JsonExpectations json() {
+        return new JsonExpectations();
+    }
+
+    public JsonExpectations at(String pointer, Matcher<?> matcher) {
+        Node node = root;
+        for (String segment : compile(pointer)) {
+            node = node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        Expectation expectation = new Expectation(pointer, matcher);
+        node.expectations.add(expectation);
+        expectations.add(expectation);
+        return this;
+    }
+
+    @Override
+    protected boolean matchesSafely(String body, Description mismatch) {
+        Map<Expectation, Object> actual;
+        try (JsonParser parser = JSON.createParser(body)) {
+            actual = evaluate(parser);
+        } catch (IOException ex) {
+            lastMismatch = "body is not valid JSON (" + ex.getMessage() + ")";
+            mismatch.appendText(lastMismatch);
+            return false;
+        }
+
+        StringBuilder failures = new StringBuilder();
+        for (Expectation expectation : expectations) {
+            Object value = actual.get(expectation);
+            if (!expectation.matcher.matches(value)) {
+                Description failure = new StringDescription();
+                expectation.matcher.describeMismatch(value, failure);
+                failures.append("\n  ").append(expectation.pointer).append(": expected ")
+                        .append(StringDescription.toString(expectation.matcher)).append(" but ").append(failure);
+            }
+        }
+        lastMismatch = failures.length() == 0 ? null : failures.toString();
+        mismatch.appendText(failures.toString());
+        return lastMismatch == null;
+    }
+
+    // RestAssured reports only the description and the raw body, so after a failed match the description
+    // names the paths that did not match
+    @Override
+    public void describeTo(Description description) {
+        if (lastMismatch != null) {
+            description.appendText("JSON body where" + lastMismatch);
+            return;
+        }
+        description.appendText("JSON body with");
+        for (Expectation expectation : expectations) {
+            description.appendText("\n  " + expectation.pointer + " ").appendDescriptionOf(expectation.matcher);
+        }
+    }
+
+    // Single pass over the body, collecting the value of every expected path that is present
+    private Map<Expectation, Object> evaluate(JsonParser parser) throws IOException {
+        Map<Expectation, Object> actual = new LinkedHashMap<>();
+        parser.nextToken();
+        visit(parser, root, actual);
+        return actual;
+    }
+
+    // Returns true once every expected path has been read, so the callers stop without consuming the rest
+    private boolean visit(JsonParser parser, Node node, Map<Expectation, Object> actual) throws IOException {
+        if (!node.expectations.isEmpty()) {
+            resolve(JsonValues.read(parser, JsonValues.Decimals.FLOAT), node, actual);
+            return actual.size() == expectations.size();
+        }
+
+        JsonToken container = parser.currentToken();
+        if (container != JsonToken.START_OBJECT && container != JsonToken.START_ARRAY) {
+            return false; // a scalar has no members; the expected paths below it are absent
+        }
+        int remaining = node.children.size();
+        int index = 0;
+        while (remaining > 0) {
+            JsonToken token = parser.nextToken();
+            if (token == null || token.isStructEnd()) {
+                return false;
+            }
+            Node child;
+            if (container == JsonToken.START_OBJECT) {
+                child = node.children.get(parser.getCurrentName());
+                parser.nextToken();
+            } else {
+                child = node.children.get(String.valueOf(index++));
+            }
+            if (child == null) {
+                parser.skipChildren();
+            } else if (visit(parser, child, actual)) {
+                return true;
+            } else {
+                remaining--;
+            }
+        }
+        // Everything expected below this node has been read; skip its remaining members
+        skipToEnd(parser);
+        return false;
+    }
+
+    // Paths below an already materialized value are looked up in it instead of being parsed again
+    private static void resolve(Object value, Node node, Map<Expectation, Object> actual) {
+        node.expectations.forEach(expectation -> actual.put(expectation, value));
+        for (Map.Entry<String, Node> child : node.children.entrySet()) {
+            Object childValue = null;
+            if (value instanceof Map) {
+                childValue = ((Map<?, ?>) value).get(child.getKey());
+            } else if (value instanceof List && child.getKey().matches("\\d+")) {
+                int index = Integer.parseInt(child.getKey());
+                childValue = index < ((List<?>) value).size() ? ((List<?>) value).get(index) : null;
+            }
+            resolve(childValue, child.getValue(), actual);
+        }
+    }
+
+    private static void skipToEnd(JsonParser parser) throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return;
+            }
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+        }
+    }
+
+    // Splits a JSON pointer into unescaped segments; "" and "/" both address the whole document
+    private static String[] compile(String pointer) {
+        return COMPILED.computeIfAbsent(pointer, p -> {
+            if (p.isEmpty() || p.equals("/")) {
+                return new String[0];
+            }
+            if (!p.startsWith("/")) {
+                throw new IllegalArgumentException("JSON pointer must start with '/': " + p);
+            }
+            String[] segments = p.substring(1).split("/", -1);
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = segments[i].replace("~1", "/").replace("~0", "~");
+            }
+            return segments;
+        });
+    }
+
+    private static final class Node {
+        final Map<String, Node> children = new LinkedHashMap<>();
+        final List<Expectation> expectations = new ArrayList<>();
+    }
+
+    private static final class Expectation {
+        final String pointer;
+        final Matcher<?> matcher;
+
+        Expectation(String pointer, Matcher<?> matcher) {
+            this.pointer = pointer;
+            this.matcher = matcher;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package utils.assertions;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A JSON schema from src/test/resources/schemas, compiled once per JVM into an immutable tree that any
+ * number of threads validate against. Validation is a single streaming pass over the body: the parser
+ * descends into the parts the schema describes and skips the rest, so no tree of the body is built.
+ * <p>
+ * Supports the keywords the contracts need: type (one type or a list), properties, required,
+ * additionalProperties (true or false), items, enum (of strings) and $ref to another schema file.
+ * Any other keyword fails compilation rather than being silently ignored.
+ */
+public final class JsonSchema {
+
+    private static final String DIRECTORY = "schemas/";
+    private static final int MAX_ERRORS = 10;
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Set<String> ANNOTATIONS = new HashSet<>(Arrays.asList("$schema", "$id", "title", "description"));
+    private static final Map<String, JsonSchema> COMPILED = new ConcurrentHashMap<>();
+
+    private final String name;
+    private volatile Node root;
+
+    private JsonSchema(String name) {
+        this.name = name;
+    }
+
+    /**
+     * The compiled schema in schemas/{name}.schema.json. Compiled on first use; $refs between schemas,
+     * including cyclic ones, resolve to the same compiled instance.
+     */
+    public static JsonSchema named(String name) {
+        JsonSchema schema = COMPILED.computeIfAbsent(name, JsonSchema::new);
+        if (schema.root == null) {
+            synchronized (schema) {
+                if (schema.root == null) {
+                    schema.root = compile(schema.load(), schema.name + "#");
+                }
+            }
+        }
+        return schema;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    // Violations as "pointer: problem", at most ten; empty when the body conforms
+    public List<String> validate(byte[] body) {
+        List<String> errors = new ArrayList<>();
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() == null) {
+                errors.add("/: empty body");
+            } else {
+                root.validate(parser, "", errors);
+            }
+        } catch (IOException ex) {
+            errors.add("/: not valid JSON (" + ex.getMessage() + ")");
+        } catch (TooManyErrors ex) {
+            errors.add("...");
+        }
+        return errors;
+    }
+
+    private JsonNode load() {
+        try (InputStream input = JsonSchema.class.getClassLoader().getResourceAsStream(DIRECTORY + name + ".schema.json")) {
+            if (input == null) {
+                throw new IllegalArgumentException("No schema " + DIRECTORY + name + ".schema.json on the test classpath");
+            }
+            return MAPPER.readTree(input);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read schema " + name, ex);
+        }
+    }
+
+    private static Node compile(JsonNode schema, String location) {
+        if (!schema.isObject()) {
+            throw new IllegalArgumentException(location + ": a schema must be an object");
+        }
+        Node node = new Node();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = schema.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String keyword = field.getKey();
+            JsonNode value = field.getValue();
+            switch (keyword) {
+                case "type":
+                    node.types = EnumSet.noneOf(Type.class);
+                    for (JsonNode type : value.isArray() ? value : MAPPER.createArrayNode().add(value)) {
+                        node.types.add(Type.of(type.asText(), location));
+                    }
+                    break;
+                case "properties":
+                    node.properties = new LinkedHashMap<>();
+                    value.fields().forEachRemaining(property ->
+                            node.properties.put(property.getKey(), compile(property.getValue(), location + "/" + property.getKey())));
+                    break;
+                case "required":
+                    node.required = new ArrayList<>();
+                    value.forEach(required -> node.required.add(required.asText()));
+                    break;
+                case "additionalProperties":
+                    if (!value.isBoolean()) {
+                        throw new IllegalArgumentException(location + ": additionalProperties must be true or false");
+                    }
+                    node.additionalProperties = value.asBoolean();
+                    break;
+                case "items":
+                    node.items = compile(value, location + "/items");
+                    break;
+                case "enum":
+                    node.allowed = new HashSet<>();
+                    value.forEach(allowed -> node.allowed.add(allowed.asText()));
+                    break;
+                case "$ref":
+                    node.ref = COMPILED.computeIfAbsent(value.asText().replaceFirst("\\.schema\\.json$", ""), JsonSchema::new);
+                    break;
+                default:
+                    if (!ANNOTATIONS.contains(keyword)) {
+                        throw new IllegalArgumentException(location + ": unsupported keyword " + keyword);
+                    }
+            }
+        }
+        return node;
+    }
+
+    private enum Type {
+        OBJECT, ARRAY, STRING, INTEGER, NUMBER, BOOLEAN, NULL;
+
+        static Type of(String name, String location) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException(location + ": unknown type " + name, ex);
+            }
+        }
+
+        static Type of(JsonToken token) {
+            switch (token) {
+                case START_OBJECT:
+                    return OBJECT;
+                case START_ARRAY:
+                    return ARRAY;
+                case VALUE_STRING:
+                    return STRING;
+                case VALUE_NUMBER_INT:
+                    return INTEGER;
+                case VALUE_NUMBER_FLOAT:
+                    return NUMBER;
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    return BOOLEAN;
+                default:
+                    return NULL;
+            }
+        }
+    }
+
+    private static final class Node {
+        Set<Type> types;
+        Map<String, Node> properties = Collections.emptyMap();
+        List<String> required = Collections.emptyList();
+        boolean additionalProperties = true;
+        Node items;
+        Set<String> allowed;
+        JsonSchema ref;
+
+        // The parser is on the value's first token; on return it is on the value's last token
+        void validate(JsonParser parser, String pointer, List<String> errors) throws IOException {
+            if (ref != null) {
+                named(ref.name).root.validate(parser, pointer, errors);
+                return;
+            }
+            Type actual = Type.of(parser.currentToken());
+            if (types != null && !types.contains(actual) && !(actual == Type.INTEGER && types.contains(Type.NUMBER))) {
+                fail(errors, pointer, "expected " + types.toString().toLowerCase(Locale.ROOT) + " but was "
+                        + actual.name().toLowerCase(Locale.ROOT));
+                parser.skipChildren();
+                return;
+            }
+            if (actual == Type.OBJECT) {
+                validateObject(parser, pointer, errors);
+            } else if (actual == Type.ARRAY) {
+                int index = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (items != null) {
+                        items.validate(parser, pointer + "/" + index, errors);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    index++;
+                }
+            } else if (allowed != null && !allowed.contains(parser.getText())) {
+                fail(errors, pointer, "\"" + parser.getText() + "\" is not one of " + allowed);
+            }
+        }
+
+        private void validateObject(JsonParser parser, String pointer, List<String> errors) throws IOException {
+            Set<String> seen = required.isEmpty() ? null : new HashSet<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (seen != null) {
+                    seen.add(field);
+                }
+                Node property = properties.get(field);
+                if (property != null) {
+                    property.validate(parser, pointer + "/" + field, errors);
+                } else {
+                    if (!additionalProperties) {
+                        fail(errors, pointer + "/" + field, "is not allowed");
+                    }
+                    parser.skipChildren();
+                }
+            }
+            for (String field : required) {
+                if (!seen.contains(field)) {
+                    fail(errors, pointer + "/" + field, "is required");
+                }
+            }
+        }
+
+        private static void fail(List<String> errors, String pointer, String problem) {
+            errors.add((pointer.isEmpty() ? "/" : pointer) + ": " + problem);
+            if (errors.size() >= MAX_ERRORS) {
+                throw new TooManyErrors();
+            }
+        }
+    }
+
+    // Ends a validation that already has enough errors to report
+    private static final class TooManyErrors extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        TooManyErrors() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package utils.auth;
+
+import io.restassured.http.Header;
+
+/**
+ * A GitHub identity the tests can act as: the login that owns the repos it creates and the token it sends.
+ * The token never appears in {@link #toString()}, so credentials can be logged.
+ */
+public final class Credential {
+
+    private final String owner;
+    private final String token;
+    private final Header authHeader;
+
+    public Credential(String owner, String token) {
+        this.owner = owner;
+        this.token = token;
+        this.authHeader = new Header("Authorization", "Bearer " + token);
+    }
+
+    public String owner() {
+        return owner;
+    }
+
+    public String token() {
+        return token;
+    }
+
+    // Authorization Bearer header for this identity
+    public Header authHeader() {
+        return authHeader;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Credential && token.equals(((Credential) other).token);
+    }
+
+    @Override
+    public int hashCode() {
+        return token.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return owner;
+    }
+}
@@ -0,0 +1,31 @@
+package utils.auth;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+
+/**
+ * Leases a credential from the {@link CredentialPool} for every test method invocation, on the thread that
+ * runs it, so parallel tests spread their requests over all configured identities.
+ * Configuration methods run without a lease and act as the primary credential.
+ */
+public class CredentialListener implements IInvokedMethodListener {
+
+    private static final ThreadLocal<CredentialPool.Lease> LEASE = new ThreadLocal<>();
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isTestMethod()) {
+            LEASE.set(CredentialPool.get().acquire());
+        }
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        CredentialPool.Lease lease = LEASE.get();
+        if (method.isTestMethod() && lease != null) {
+            LEASE.remove();
+            lease.close();
+        }
+    }
+}
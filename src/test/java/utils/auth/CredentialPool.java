@@ -0,0 +1,222 @@
+package utils.auth;
+
+import io.restassured.response.Response;
+import utils.config.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * The GitHub identities a run spreads its requests over, so each one only spends its own rate-limit quota.
+ * CREDENTIALS lists them as owner:token pairs; the entry "primary" stands for OWNER_USERNAME and AUTH_TOKEN.
+ * <p>
+ * A worker takes a credential with {@link #acquire()} and acts as it until the lease is closed; the
+ * {@link CredentialListener} does this around every test method. CREDENTIAL_SELECTION picks the credential:
+ * "quota" prefers the one with the most remaining quota per active lease, as last reported by the
+ * X-RateLimit-* headers, and "least-used" the one with the fewest active leases and requests.
+ * Threads without a lease act as the first credential in the list.
+ * <p>
+ * Repos belong to the identity that created them, so a repo is always addressed with its creator's owner
+ * and token: see {@link #forOwner} and {@link utils.fixtures.RepoFixturePool#ownerOf}.
+ */
+public final class CredentialPool {
+
+    public static final String PRIMARY = "primary";
+
+    private static final CredentialPool INSTANCE = new CredentialPool(
+            parse(Config.get()),
+            Selection.of(Config.get().getString("CREDENTIAL_SELECTION")));
+
+    private static final ThreadLocal<Credential> CURRENT = new ThreadLocal<>();
+
+    private final List<Usage> usages;
+    private final Map<String, Usage> byAuthorization = new HashMap<>();
+    private final Selection selection;
+
+    public CredentialPool(List<Credential> credentials, Selection selection) {
+        this.usages = credentials.stream().map(Usage::new).collect(Collectors.toList());
+        this.usages.forEach(usage -> byAuthorization.put(usage.credential.authHeader().getValue(), usage));
+        this.selection = selection;
+    }
+
+    public static CredentialPool get() {
+        return INSTANCE;
+    }
+
+    // The credential the calling thread acts as
+    public Credential current() {
+        Credential credential = CURRENT.get();
+        return credential != null ? credential : primary();
+    }
+
+    public Credential primary() {
+        return usages.get(0).credential;
+    }
+
+    public List<Credential> all() {
+        return usages.stream().map(usage -> usage.credential).collect(Collectors.toList());
+    }
+
+    // The credential whose login owns the given repos; the primary one for owners outside the pool
+    public Credential forOwner(String owner) {
+        for (Usage usage : usages) {
+            if (usage.credential.owner().equalsIgnoreCase(owner)) {
+                return usage.credential;
+            }
+        }
+        return primary();
+    }
+
+    // The credential that sent the given Authorization header, or null when it is not one of the pool's
+    public Credential forAuthorization(String authorization) {
+        Usage usage = authorization == null ? null : byAuthorization.get(authorization);
+        return usage == null ? null : usage.credential;
+    }
+
+    /**
+     * Picks a credential and makes it the calling thread's until the returned lease is closed. Requests take
+     * the owner and token from {@link #current()}; OWNER_USERNAME and AUTH_TOKEN only define the primary one.
+     */
+    public Lease acquire() {
+        Usage usage = select();
+        Credential previous = CURRENT.get();
+        CURRENT.set(usage.credential);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+            usage.active.decrementAndGet();
+        };
+    }
+
+    // Tracks the quota left per credential from the core rate-limit headers of its responses
+    public void onResponse(String authorization, Response response) {
+        Usage usage = authorization == null ? null : byAuthorization.get(authorization);
+        if (usage == null) {
+            return;
+        }
+        usage.requests.incrementAndGet();
+        String resource = response.getHeader("X-RateLimit-Resource");
+        String remaining = response.getHeader("X-RateLimit-Remaining");
+        String reset = response.getHeader("X-RateLimit-Reset");
+        if ((resource == null || "core".equals(resource)) && remaining != null && reset != null) {
+            usage.update(Long.parseLong(remaining), Long.parseLong(reset));
+        }
+    }
+
+    // One line per credential with its leases, requests and last known quota
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        for (Usage usage : usages) {
+            long remaining = usage.remaining;
+            lines.add(usage.credential.owner() + ": " + usage.leases.get() + " leases, " + usage.requests.get()
+                    + " requests, " + (remaining < 0 ? "quota unknown" : remaining + " remaining"));
+        }
+        return lines;
+    }
+
+    private synchronized Usage select() {
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        Usage best = usages.get(0);
+        for (Usage usage : usages.subList(1, usages.size())) {
+            if (selection.compare(usage, best, nowSeconds) < 0) {
+                best = usage;
+            }
+        }
+        best.active.incrementAndGet();
+        best.leases.incrementAndGet();
+        return best;
+    }
+
+    static List<Credential> parse(Config config) {
+        Map<String, Credential> credentials = new LinkedHashMap<>();
+        for (String entry : config.getList("CREDENTIALS")) {
+            Credential credential;
+            int separator = entry.indexOf(':');
+            if (PRIMARY.equalsIgnoreCase(entry)) {
+                credential = new Credential(config.getString("OWNER_USERNAME"), config.getString("AUTH_TOKEN"));
+            } else if (separator > 0 && separator < entry.length() - 1) {
+                credential = new Credential(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+            } else {
+                throw new IllegalStateException("CREDENTIALS entry " + entry.replaceFirst(":.*", ":...") + " (from "
+                        + config.sourceOf("CREDENTIALS") + ") is neither " + PRIMARY + " nor owner:token");
+            }
+            credentials.putIfAbsent(credential.token(), credential);
+        }
+        return Collections.unmodifiableList(new ArrayList<>(credentials.values()));
+    }
+
+    /**
+     * Ends a lease; closing hands the credential back and restores what the thread acted as before.
+     */
+    public interface Lease extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public enum Selection {
+        QUOTA {
+            @Override
+            int compare(Usage a, Usage b, long nowSeconds) {
+                int byQuota = Double.compare(b.quotaPerLease(nowSeconds), a.quotaPerLease(nowSeconds));
+                return byQuota != 0 ? byQuota : LEAST_USED.compare(a, b, nowSeconds);
+            }
+        },
+        LEAST_USED {
+            @Override
+            int compare(Usage a, Usage b, long nowSeconds) {
+                int byActive = Integer.compare(a.active.get(), b.active.get());
+                return byActive != 0 ? byActive : Long.compare(a.requests.get(), b.requests.get());
+            }
+        };
+
+        // Negative when a is the better pick
+        abstract int compare(Usage a, Usage b, long nowSeconds);
+
+        static Selection of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalStateException("Unknown CREDENTIAL_SELECTION " + name + "; use quota or least-used", ex);
+            }
+        }
+    }
+
+    static final class Usage {
+        final Credential credential;
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicLong leases = new AtomicLong();
+        final AtomicLong requests = new AtomicLong();
+        private volatile long remaining = -1;
+        private volatile long resetEpochSeconds;
+
+        Usage(Credential credential) {
+            this.credential = credential;
+        }
+
+        synchronized void update(long remaining, long resetEpochSeconds) {
+            // Responses arrive out of order; within a window the quota only goes down
+            if (this.remaining < 0 || resetEpochSeconds > this.resetEpochSeconds
+                    || (resetEpochSeconds == this.resetEpochSeconds && remaining < this.remaining)) {
+                this.remaining = remaining;
+                this.resetEpochSeconds = resetEpochSeconds;
+            }
+        }
+
+        // Unknown quota, or a window that has already reset, counts as untouched
+        double quotaPerLease(long nowSeconds) {
+            long known = remaining < 0 || nowSeconds >= resetEpochSeconds ? Long.MAX_VALUE : remaining;
+            return (double) known / (active.get() + 1);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package utils.cassette;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recorded HTTP interactions, stored in one indexed file that replay memory-maps instead of parsing.
+ *
+ * <pre>
+ * header  "CSST", int version, int entryCount
+ * index   entryCount x (long keyHash, int occurrence, int recordOffset), sorted by hash then occurrence
+ * records int keyLength, key, int status, int headerCount,
+ *         headerCount x (short nameLength, name, int valueLength, value), int bodyLength, body
+ * </pre>
+ *
+ * A key recorded several times is replayed in the recorded order; once the recording runs out, its last
+ * response keeps being served.
+ */
+public final class Cassette {
+
+    private static final int MAGIC = 0x43535354; // "CSST"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int INDEX_ENTRY_BYTES = 16;
+
+    private final Map<String, List<Interaction>> recorded = new LinkedHashMap<>();
+    private final Map<String, AtomicInteger> replayed = new ConcurrentHashMap<>();
+    private final ByteBuffer mapped;
+    private final int entryCount;
+
+    private Cassette(ByteBuffer mapped) {
+        this.mapped = mapped;
+        this.entryCount = mapped == null ? 0 : mapped.getInt(8);
+    }
+
+    public static Cassette empty() {
+        return new Cassette(null);
+    }
+
+    public static Cassette open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IllegalStateException(file + " is not a version " + VERSION + " cassette");
+            }
+            return new Cassette(buffer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open cassette " + file, ex);
+        }
+    }
+
+    public synchronized void record(String key, Interaction interaction) {
+        recorded.computeIfAbsent(key, k -> new ArrayList<>()).add(interaction);
+    }
+
+    // Returns the next recorded response for the key, or null when the key was never recorded
+    public Interaction replay(String key) {
+        if (mapped == null) {
+            return null;
+        }
+        int occurrence = replayed.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement();
+        long hash = hash(key);
+        int first = firstIndexOf(hash);
+        Interaction last = null;
+        for (int i = first; i >= 0 && i < entryCount && indexHash(i) == hash; i++) {
+            ByteBuffer record = recordAt(mapped.getInt(indexPosition(i) + 12));
+            if (!key.equals(readString(record, record.getInt()))) {
+                continue; // hash collision
+            }
+            last = readInteraction(record);
+            if (mapped.getInt(indexPosition(i) + 8) == occurrence) {
+                return last;
+            }
+        }
+        return last;
+    }
+
+    public synchronized void write(Path file) {
+        List<Object[]> entries = new ArrayList<>();
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            ByteArrayOutputStream records = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(records);
+            for (Map.Entry<String, List<Interaction>> entry : recorded.entrySet()) {
+                List<Interaction> interactions = entry.getValue();
+                for (int occurrence = 0; occurrence < interactions.size(); occurrence++) {
+                    entries.add(new Object[]{hash(entry.getKey()), occurrence, out.size()});
+                    writeRecord(out, entry.getKey(), interactions.get(occurrence));
+                }
+            }
+            entries.sort(Comparator.<Object[]>comparingLong(e -> (Long) e[0]).thenComparingInt(e -> (Integer) e[1]));
+
+            int recordsStart = HEADER_BYTES + entries.size() * INDEX_ENTRY_BYTES;
+            ByteBuffer header = ByteBuffer.allocate(recordsStart);
+            header.putInt(MAGIC).putInt(VERSION).putInt(entries.size());
+            for (Object[] e : entries) {
+                header.putLong((Long) e[0]).putInt((Integer) e[1]).putInt(recordsStart + (Integer) e[2]);
+            }
+            out.flush();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                header.flip();
+                channel.write(header);
+                channel.write(ByteBuffer.wrap(records.toByteArray()));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write cassette " + file, ex);
+        }
+    }
+
+    public synchronized int size() {
+        return recorded.values().stream().mapToInt(List::size).sum();
+    }
+
+    private static void writeRecord(DataOutputStream out, String key, Interaction interaction) throws IOException {
+        writeString(out, key);
+        out.writeInt(interaction.status);
+        out.writeInt(interaction.headers.size());
+        for (String[] header : interaction.headers) {
+            byte[] name = header[0].getBytes(StandardCharsets.UTF_8);
+            out.writeShort(name.length);
+            out.write(name);
+            writeString(out, header[1]);
+        }
+        out.writeInt(interaction.body.length);
+        out.write(interaction.body);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Interaction readInteraction(ByteBuffer record) {
+        int status = record.getInt();
+        int headerCount = record.getInt();
+        List<String[]> headers = new ArrayList<>(headerCount);
+        for (int i = 0; i < headerCount; i++) {
+            String name = readString(record, record.getShort());
+            headers.add(new String[]{name, readString(record, record.getInt())});
+        }
+        byte[] body = new byte[record.getInt()];
+        record.get(body);
+        return new Interaction(status, headers, body);
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Lowest index whose hash is >= the given hash
+    private int firstIndexOf(long hash) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (indexHash(mid) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long indexHash(int i) {
+        return mapped.getLong(indexPosition(i));
+    }
+
+    private static int indexPosition(int i) {
+        return HEADER_BYTES + i * INDEX_ENTRY_BYTES;
+    }
+
+    // Each reader gets its own view, so concurrent replays never share a buffer position
+    private ByteBuffer recordAt(int offset) {
+        ByteBuffer view = mapped.duplicate();
+        view.position(offset);
+        return view;
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes of the key
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,63 @@
+package utils.cassette;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import utils.config.Config;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Records responses to a {@link Cassette} or serves them back from one, depending on CASSETTE_MODE
+ * (off, record or replay). Runs first among the API filters: replayed requests never reach the network,
+ * the conditional cache, the rate-limit scheduler or the latency metrics. A request that was not recorded fails instead of falling through to the live API.
+ */
+public class CassetteFilter implements OrderedFilter {
+
+    public enum Mode { OFF, RECORD, REPLAY }
+
+    private static final Mode MODE = Mode.valueOf(Config.get().getString("CASSETTE_MODE").toUpperCase(Locale.ROOT));
+    private static final Path FILE = Config.get().getPath("CASSETTE_FILE");
+    private static final Cassette CASSETTE = MODE == Mode.REPLAY ? Cassette.open(FILE) : Cassette.empty();
+
+    public static Mode mode() {
+        return MODE;
+    }
+
+    // Writes what was recorded during the run; a no-op unless recording
+    public static void flush() {
+        if (MODE == Mode.RECORD && CASSETTE.size() > 0) {
+            CASSETTE.write(FILE);
+            System.out.println("Recorded " + CASSETTE.size() + " interactions to " + FILE);
+        }
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        if (MODE == Mode.OFF) {
+            return ctx.next(requestSpec, responseSpec);
+        }
+
+        RequestKey key = RequestKey.of(requestSpec);
+        if (MODE == Mode.REPLAY) {
+            Interaction interaction = CASSETTE.replay(key.value);
+            if (interaction == null) {
+                throw new IllegalStateException("No recorded interaction for " + key.value + " in " + FILE);
+            }
+            return interaction.toResponse(key.names);
+        }
+
+        Response response = ctx.next(requestSpec, responseSpec);
+        CASSETTE.record(key.value, Interaction.recordedFrom(response, key.names));
+        return response;
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 3;
+    }
+}
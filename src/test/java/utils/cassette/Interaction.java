@@ -0,0 +1,67 @@
+package utils.cassette;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * One recorded response. Generated repository names are stored as {{n}} placeholders that refer to the
+ * names of the matching request, so a replayed response carries the names of the run that replays it.
+ */
+public final class Interaction {
+
+    // Connection-level or per-response headers that make no sense to replay
+    private static final Set<String> SKIPPED_HEADERS = new HashSet<>(Arrays.asList(
+            "date", "server", "connection", "keep-alive", "transfer-encoding", "content-length", "set-cookie"));
+
+    final int status;
+    final List<String[]> headers;
+    final byte[] body;
+
+    Interaction(int status, List<String[]> headers, byte[] body) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public static Interaction recordedFrom(Response response, List<String> names) {
+        List<String[]> headers = new ArrayList<>();
+        for (Header header : response.getHeaders()) {
+            if (!SKIPPED_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT))) {
+                headers.add(new String[]{header.getName(), RequestKey.placeholders(header.getValue(), names)});
+            }
+        }
+        String body = RequestKey.placeholders(response.asString(), names);
+        return new Interaction(response.getStatusCode(), headers, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Response toResponse(List<String> names) {
+        List<Header> replayed = new ArrayList<>();
+        String contentType = null;
+        for (String[] header : headers) {
+            replayed.add(new Header(header[0], RequestKey.substitute(header[1], names)));
+            if (header[0].equalsIgnoreCase("Content-Type")) {
+                contentType = header[1];
+            }
+        }
+
+        ResponseBuilder builder = new ResponseBuilder()
+                .setStatusCode(status)
+                .setStatusLine("HTTP/1.1 " + status)
+                .setHeaders(new Headers(replayed))
+                .setBody(RequestKey.substitute(new String(body, StandardCharsets.UTF_8), names).getBytes(StandardCharsets.UTF_8));
+        if (contentType != null) {
+            builder.setContentType(contentType);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,105 @@
+package utils.cassette;
+
+import groovy.json.JsonOutput;
+import groovy.json.JsonSlurper;
+import io.restassured.specification.FilterableRequestSpecification;
+import utils.api.RateLimitScheduler;
+import utils.api.RepoNames;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replay lookup key of a request: method, path and query, caller identity, and the JSON body with its
+ * keys sorted. Names generated by {@link RepoNames} and epoch-millisecond timestamps are replaced by {{n}}
+ * placeholders in order of appearance, so the same test produces the same key in every run.
+ */
+final class RequestKey {
+
+    private static final Pattern VOLATILE = Pattern.compile(
+            RepoNames.generatedPattern().pattern() + "|(?<![0-9])1[0-9]{12}(?![0-9])");
+
+    final String value;
+    final List<String> names;
+
+    private RequestKey(String value, List<String> names) {
+        this.value = value;
+        this.names = names;
+    }
+
+    static RequestKey of(FilterableRequestSpecification requestSpec) {
+        List<String> names = new ArrayList<>();
+        URI uri = URI.create(requestSpec.getURI());
+        String pathAndQuery = uri.getRawPath() + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+
+        String value = requestSpec.getMethod()
+                + " " + collectNames(pathAndQuery, names)
+                + " " + RateLimitScheduler.identityOf(requestSpec.getHeaders().getValue("Authorization"))
+                + " " + collectNames(normalizeBody(requestSpec.getBody()), names);
+        return new RequestKey(value, names);
+    }
+
+    // Replaces generated values with placeholders, registering values not seen before
+    private static String collectNames(String text, List<String> names) {
+        Matcher matcher = VOLATILE.matcher(text);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            int index = names.indexOf(matcher.group());
+            if (index < 0) {
+                index = names.size();
+                names.add(matcher.group());
+            }
+            matcher.appendReplacement(result, "{{" + index + "}}");
+        }
+        return matcher.appendTail(result).toString();
+    }
+
+    // Replaces only the values already known from the request
+    static String placeholders(String text, List<String> names) {
+        String result = text;
+        for (int i = 0; i < names.size(); i++) {
+            result = result.replace(names.get(i), "{{" + i + "}}");
+        }
+        return result;
+    }
+
+    static String substitute(String text, List<String> names) {
+        String result = text;
+        for (int i = 0; i < names.size(); i++) {
+            result = result.replace("{{" + i + "}}", names.get(i));
+        }
+        return result;
+    }
+
+    private static String normalizeBody(Object body) {
+        if (body == null) {
+            return "";
+        }
+        String text = body instanceof byte[] ? new String((byte[]) body, StandardCharsets.UTF_8) : body.toString();
+        try {
+            return JsonOutput.toJson(sorted(new JsonSlurper().parseText(text)));
+        } catch (RuntimeException notJson) {
+            return text.trim();
+        }
+    }
+
+    private static Object sorted(Object json) {
+        if (json instanceof Map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            ((Map<?, ?>) json).forEach((key, value) -> sorted.put(String.valueOf(key), sorted(value)));
+            return sorted;
+        }
+        if (json instanceof List) {
+            List<Object> items = new ArrayList<>();
+            ((List<?>) json).forEach(item -> items.add(sorted(item)));
+            return items;
+        }
+        return json;
+    }
+}
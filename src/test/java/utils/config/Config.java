@@ -0,0 +1,281 @@
+package utils.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable snapshot of the test configuration, loaded once per process from four layers, each overriding the last:
+ * <ol>
+ *     <li>{@code config.properties} on the test classpath, which declares every key and its default;</li>
+ *     <li>the properties file named by CONFIG_FILE (an environment variable or system property), if set;</li>
+ *     <li>environment variables with the same names as the keys;</li>
+ *     <li>system properties, e.g. -DBASE_URL=http://localhost:8089.</li>
+ * </ol>
+ * Loading fails on a missing or unreadable file, a key the defaults do not declare, a blank value, or a value
+ * that does not parse as the same type as its default (whole number, decimal or true/false).
+ * <p>
+ * {@link #get()} returns the calling thread's view. A worker can swap in its own overrides, e.g. another
+ * BASE_URL, with {@link #overrideForThread}; the identity it acts as comes from the credential pool instead.
+ * Other threads, pooled ones included, do not see the overrides; work handed to another thread on the
+ * worker's behalf carries them along with {@link #propagate}. Values read into static fields when a class
+ * loads keep the view of the thread that loaded it.
+ */
+public final class Config {
+
+    public static final String RESOURCE = "config.properties";
+    public static final String CONFIG_FILE = "CONFIG_FILE";
+
+    private static final Pattern WHOLE_NUMBER = Pattern.compile("-?\\d+");
+    private static final Pattern DECIMAL = Pattern.compile("-?\\d+\\.\\d+");
+    private static final Pattern BOOLEAN = Pattern.compile("true|false", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LIST_SEPARATOR = Pattern.compile("\\s*,\\s*");
+
+    private static final Config GLOBAL = load();
+    private static final ThreadLocal<Config> WORKER = new ThreadLocal<>();
+
+    private final Map<String, String> values;
+    private final Map<String, String> sources;
+    private final Map<String, String> defaults;
+
+    private Config(Map<String, String> values, Map<String, String> sources, Map<String, String> defaults) {
+        this.values = Collections.unmodifiableMap(values);
+        this.sources = Collections.unmodifiableMap(sources);
+        this.defaults = defaults;
+    }
+
+    // The configuration seen by the calling thread
+    public static Config get() {
+        Config worker = WORKER.get();
+        return worker != null ? worker : GLOBAL;
+    }
+
+    // The process-wide snapshot, without any worker overrides
+    public static Config global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Makes {@code overrides} part of the calling thread's configuration until the returned scope is closed.
+     * Overrides are validated like any other layer.
+     */
+    public static Scope overrideForThread(Map<String, String> overrides) {
+        return use(get().with(overrides, "worker override"));
+    }
+
+    // Wraps a task so that whichever thread runs it sees the calling thread's configuration meanwhile
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        Config captured = WORKER.get();
+        return () -> {
+            Scope scope = use(captured);
+            try {
+                return task.get();
+            } finally {
+                scope.close();
+            }
+        };
+    }
+
+    private static Scope use(Config config) {
+        Config previous = WORKER.get();
+        if (config == null) {
+            WORKER.remove();
+        } else {
+            WORKER.set(config);
+        }
+        return () -> {
+            if (previous == null) {
+                WORKER.remove();
+            } else {
+                WORKER.set(previous);
+            }
+        };
+    }
+
+    // A copy of this configuration with the given values replaced
+    public Config with(Map<String, String> overrides, String source) {
+        Map<String, String> merged = new LinkedHashMap<>(values);
+        Map<String, String> mergedSources = new LinkedHashMap<>(sources);
+        List<String> problems = new ArrayList<>();
+        overrides.forEach((key, value) -> apply(key, value, source, merged, mergedSources, defaults, problems));
+        failOn(problems);
+        return new Config(merged, mergedSources, defaults);
+    }
+
+    public String getString(String key) {
+        String value = values.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown configuration key " + key + "; declare it in " + RESOURCE);
+        }
+        return value;
+    }
+
+    public int getInt(String key) {
+        return Math.toIntExact(getLong(key));
+    }
+
+    public long getLong(String key) {
+        try {
+            return Long.parseLong(getString(key));
+        } catch (NumberFormatException ex) {
+            throw invalid(key, "a whole number");
+        }
+    }
+
+    public double getDouble(String key) {
+        try {
+            return Double.parseDouble(getString(key));
+        } catch (NumberFormatException ex) {
+            throw invalid(key, "a number");
+        }
+    }
+
+    public boolean getBoolean(String key) {
+        String value = getString(key);
+        if (!BOOLEAN.matcher(value).matches()) {
+            throw invalid(key, "true or false");
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    // Comma-separated values, e.g. REAPER_PREFIXES = testRepo,my-repo
+    public List<String> getList(String key) {
+        return Collections.unmodifiableList(Arrays.asList(LIST_SEPARATOR.split(getString(key).trim())));
+    }
+
+    public Path getPath(String key) {
+        return Paths.get(getString(key));
+    }
+
+    // Where the current value of a key came from, for error messages
+    public String sourceOf(String key) {
+        return sources.get(key);
+    }
+
+    private IllegalStateException invalid(String key, String expected) {
+        return new IllegalStateException(key + " = " + values.get(key) + " (from " + sources.get(key) + ") is not " + expected);
+    }
+
+    private static Config load() {
+        Map<String, String> defaults = new LinkedHashMap<>();
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<String, String> sources = new LinkedHashMap<>();
+        List<String> problems = new ArrayList<>();
+
+        Properties base = new Properties();
+        try (InputStream input = Config.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (input == null) {
+                throw new IllegalStateException(RESOURCE + " is not on the test classpath");
+            }
+            base.load(new InputStreamReader(input, StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not read " + RESOURCE + " from the classpath", ex);
+        }
+        base.stringPropertyNames().stream().sorted().forEach(key -> {
+            String value = base.getProperty(key).trim();
+            defaults.put(key, value);
+            values.put(key, value);
+            sources.put(key, "classpath:" + RESOURCE);
+            if (value.isEmpty()) {
+                problems.add(key + " has no default in " + RESOURCE);
+            }
+        });
+        Map<String, String> frozenDefaults = Collections.unmodifiableMap(defaults);
+
+        String file = System.getProperty(CONFIG_FILE, System.getenv(CONFIG_FILE));
+        if (file != null && !file.trim().isEmpty()) {
+            Path path = Paths.get(file.trim());
+            Properties overrides = new Properties();
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                overrides.load(reader);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Could not read " + CONFIG_FILE + " " + path.toAbsolutePath(), ex);
+            }
+            new TreeMap<>(toMap(overrides)).forEach((key, value) ->
+                    apply(key, value, "file:" + path, values, sources, frozenDefaults, problems));
+        }
+
+        // The environment and system properties hold plenty of unrelated entries; only declared keys count
+        for (String key : frozenDefaults.keySet()) {
+            String value = System.getenv(key);
+            if (value != null) {
+                apply(key, value, "environment", values, sources, frozenDefaults, problems);
+            }
+        }
+        for (String key : frozenDefaults.keySet()) {
+            String value = System.getProperty(key);
+            if (value != null) {
+                apply(key, value, "system property", values, sources, frozenDefaults, problems);
+            }
+        }
+
+        failOn(problems);
+        return new Config(values, sources, frozenDefaults);
+    }
+
+    private static void apply(String key, String value, String source, Map<String, String> values,
+                              Map<String, String> sources, Map<String, String> defaults, List<String> problems) {
+        String defaultValue = defaults.get(key);
+        String trimmed = value == null ? "" : value.trim();
+        if (defaultValue == null) {
+            problems.add(key + " (from " + source + ") is not a known key; declare it in " + RESOURCE);
+        } else if (trimmed.isEmpty()) {
+            problems.add(key + " (from " + source + ") is blank");
+        } else if (!sameType(defaultValue, trimmed)) {
+            problems.add(key + " = " + trimmed + " (from " + source + ") does not match the type of its default "
+                    + defaultValue);
+        } else {
+            values.put(key, trimmed);
+            sources.put(key, source);
+        }
+    }
+
+    // A whole-number default takes whole numbers, a decimal default any number, a boolean default true or false
+    private static boolean sameType(String defaultValue, String value) {
+        if (WHOLE_NUMBER.matcher(defaultValue).matches()) {
+            return WHOLE_NUMBER.matcher(value).matches();
+        }
+        if (DECIMAL.matcher(defaultValue).matches()) {
+            return WHOLE_NUMBER.matcher(value).matches() || DECIMAL.matcher(value).matches();
+        }
+        if (BOOLEAN.matcher(defaultValue).matches()) {
+            return BOOLEAN.matcher(value).matches();
+        }
+        return true;
+    }
+
+    private static Map<String, String> toMap(Properties properties) {
+        Map<String, String> map = new LinkedHashMap<>();
+        properties.stringPropertyNames().forEach(key -> map.put(key, properties.getProperty(key)));
+        return map;
+    }
+
+    private static void failOn(List<String> problems) {
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid configuration:\n  " + String.join("\n  ", problems));
+        }
+    }
+
+    /**
+     * Ends a thread's override; closing restores the configuration the thread saw before.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
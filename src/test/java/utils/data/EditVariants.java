@@ -0,0 +1,169 @@
+package utils.data;
+
+import utils.api.RepoNames;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Generated inputs for the repository edit tests. Variant {@code i} is always the same string, so a failing
+ * row can be reproduced by its index; rows are produced lazily, so thousands of them cost no memory up front.
+ * Descriptions rotate through unicode, longest allowed, escape-heavy, boundary-sized and mixed printable text.
+ */
+public final class EditVariants {
+
+    // Longest description the variants send
+    public static final int MAX_DESCRIPTION_LENGTH = 350;
+    // GitHub's limit on repository names
+    public static final int MAX_NAME_LENGTH = 100;
+
+    private static final String[] UNICODE = {
+            "\u65e5\u672c\u8a9e\u306e\u8aac\u660e", "\u63cf\u8ff0", "\uc124\uba85", // Japanese, Chinese, Korean
+            "\u0648\u0635\u0641 \u0627\u0644\u0645\u0633\u062a\u0648\u062f\u0639", "\u05ea\u05d9\u05d0\u05d5\u05e8", // right-to-left
+            "\u041e\u043f\u0438\u0441\u0430\u043d\u0438\u0435", "\u0395\u03bb\u03bb\u03b7\u03bd\u03b9\u03ba\u03ac",
+            "e\u0301", "\u1e9e", "\u03a9\u2248\u00e7\u221a\u222b", // combining accent, capital sharp s, symbols
+            "\ud83d\ude80", "\u2728", "\ud83d\udc69\u200d\ud83d\udc69\u200d\ud83d\udc67" // emoji, zero-width-joined emoji
+    };
+    private static final String ESCAPES = "\"\\/'<>&{}[]%$#@!?`~^*|=+;:,";
+    private static final String[] ESCAPE_SEQUENCES = {"\\n", "\\u0000", "\\\"", "</script>", "${x}", "%s", "{{x}}", "&amp;"};
+    private static final String PRINTABLE = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 .,-_()";
+    private static final String NAME_CHARACTERS = "abcdefghijklmnopqrstuvwxyz0123456789._-";
+    private static final int[] BOUNDARY_LENGTHS = {1, 2, 63, 64, 65, 127, 128, 255, 256, MAX_DESCRIPTION_LENGTH - 1, MAX_DESCRIPTION_LENGTH};
+
+    private EditVariants() {
+    }
+
+    public static Iterator<Object[]> descriptions(int count) {
+        return rows(count, index -> new Object[]{description(index)});
+    }
+
+    public static Iterator<Object[]> names(int count) {
+        return rows(count, index -> new Object[]{name(index)});
+    }
+
+    public static String description(int index) {
+        Random random = new Random(index);
+        switch (index % 5) {
+            case 0:
+                return unicode(random, 1 + random.nextInt(60));
+            case 1:
+                return fill(random, MAX_DESCRIPTION_LENGTH);
+            case 2:
+                return escapeHeavy(random, 1 + random.nextInt(80));
+            case 3:
+                return fill(random, BOUNDARY_LENGTHS[(index / 5) % BOUNDARY_LENGTHS.length]);
+            default:
+                return trimmed(printable(random, 1 + random.nextInt(120)), random);
+        }
+    }
+
+    public static NameVariant name(int index) {
+        // Lengths cluster around the limit: the shortest unique name, just below, at and just above the maximum
+        int[] lengths = {0, MAX_NAME_LENGTH - 1, MAX_NAME_LENGTH, MAX_NAME_LENGTH + 1, 40 + index % 50};
+        return new NameVariant(index, lengths[index % lengths.length]);
+    }
+
+    // A name of the requested length (at least the length of a unique name), valid only up to MAX_NAME_LENGTH
+    public static final class NameVariant {
+
+        private final int index;
+        private final int length;
+
+        NameVariant(int index, int length) {
+            this.index = index;
+            this.length = length;
+        }
+
+        public boolean valid() {
+            return length <= MAX_NAME_LENGTH;
+        }
+
+        // Names must be unique on the account, so every call starts from a fresh unique name
+        public String build() {
+            StringBuilder name = new StringBuilder(RepoNames.unique("v"));
+            Random random = new Random(index);
+            while (name.length() < length) {
+                name.append(NAME_CHARACTERS.charAt(random.nextInt(NAME_CHARACTERS.length())));
+            }
+            return name.toString();
+        }
+
+        @Override
+        public String toString() {
+            return "name variant " + index + " (" + (length == 0 ? "shortest" : length + " chars") + ")";
+        }
+    }
+
+    private static String unicode(Random random, int pieces) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < pieces && text.length() < MAX_DESCRIPTION_LENGTH - 16; i++) {
+            text.append(UNICODE[random.nextInt(UNICODE.length)]);
+            if (random.nextInt(3) == 0) {
+                text.append(' ');
+            }
+        }
+        return text.toString().trim();
+    }
+
+    private static String escapeHeavy(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < length) {
+            if (random.nextInt(4) == 0) {
+                text.append(ESCAPE_SEQUENCES[random.nextInt(ESCAPE_SEQUENCES.length)]);
+            } else {
+                text.append(ESCAPES.charAt(random.nextInt(ESCAPES.length())));
+            }
+        }
+        return text.toString();
+    }
+
+    // Exactly length characters, mixing printable ASCII with the occasional non-ASCII letter
+    private static String fill(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append(random.nextInt(10) == 0 ? '\u00e9' : PRINTABLE.charAt(random.nextInt(PRINTABLE.length())));
+        }
+        return trimmed(text.toString(), random);
+    }
+
+    private static String printable(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(PRINTABLE.charAt(random.nextInt(PRINTABLE.length())));
+        }
+        return text.toString();
+    }
+
+    // The API trims surrounding whitespace, so the first and last characters are never blanks
+    private static String trimmed(String text, Random random) {
+        char[] chars = text.toCharArray();
+        if (chars[0] == ' ') {
+            chars[0] = (char) ('a' + random.nextInt(26));
+        }
+        if (chars[chars.length - 1] == ' ') {
+            chars[chars.length - 1] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static Iterator<Object[]> rows(int count, IntFunction<Object[]> row) {
+        return new Iterator<Object[]>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return row.apply(next++);
+            }
+        };
+    }
+}
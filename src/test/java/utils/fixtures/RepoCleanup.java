@@ -0,0 +1,126 @@
+package utils.fixtures;
+
+import utils.api.ApiSpecs;
+import utils.auth.CredentialPool;
+import utils.config.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Asynchronous deletion queue for repositories created by tests. Tests enqueue and move on; a dispatcher
+ * thread takes up to CLEANUP_BATCH_SIZE repos at a time and deletes each batch concurrently.
+ * Each repo is deleted with the token of the {@link CredentialPool} identity that owns it.
+ * The queue is drained at the end of the run and again from a shutdown hook, so nothing queued is lost
+ * when the JVM exits.
+ */
+public final class RepoCleanup {
+
+    private static final RepoCleanup INSTANCE = new RepoCleanup(
+            Config.get().getInt("CLEANUP_BATCH_SIZE"),
+            Config.get().getLong("CLEANUP_DRAIN_TIMEOUT_SECONDS"));
+
+    private final BlockingQueue<String[]> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService workers;
+    private final int batchSize;
+    private final long drainTimeoutSeconds;
+    private int pending;
+
+    private RepoCleanup(int batchSize, long drainTimeoutSeconds) {
+        this.batchSize = Math.max(1, batchSize);
+        this.drainTimeoutSeconds = drainTimeoutSeconds;
+        this.workers = Executors.newFixedThreadPool(this.batchSize, daemon("repo-cleanup"));
+
+        Thread dispatcher = daemon("repo-cleanup-dispatcher").newThread(this::dispatch);
+        dispatcher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "repo-cleanup-drain"));
+    }
+
+    public static RepoCleanup get() {
+        return INSTANCE;
+    }
+
+    public void delete(String owner, String repoName) {
+        synchronized (this) {
+            pending++;
+        }
+        queue.offer(new String[]{owner, repoName});
+    }
+
+    // Blocks until every queued deletion has finished, or the drain timeout expires
+    public synchronized void drain() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainTimeoutSeconds);
+        long left;
+        while (pending > 0 && (left = deadline - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (pending > 0) {
+            System.err.println("Repo cleanup gave up with " + pending + " deletions outstanding");
+        }
+    }
+
+    private void dispatch() {
+        List<String[]> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+
+            CompletableFuture<?>[] deletions = new CompletableFuture<?>[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                String[] repo = batch.get(i);
+                deletions[i] = CompletableFuture.runAsync(() -> deleteQuietly(repo[0], repo[1]), workers);
+            }
+            CompletableFuture.allOf(deletions).exceptionally(ex -> null).join();
+
+            synchronized (this) {
+                pending -= batch.size();
+                notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private void deleteQuietly(String owner, String repoName) {
+        try {
+            int status = given()
+                    .spec(ApiSpecs.spec())
+                    .header(CredentialPool.get().forOwner(owner).authHeader())
+                    .when()
+                    .delete("/repos/{owner}/{repo}", owner, repoName)
+                    .statusCode();
+
+            // 404 means the repository is already gone, which is what cleanup wants
+            if (status != 204 && status != 404) {
+                System.err.println("Could not delete " + owner + "/" + repoName + ": HTTP " + status);
+            }
+        } catch (RuntimeException ex) {
+            System.err.println("Could not delete " + owner + "/" + repoName + ": " + ex);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
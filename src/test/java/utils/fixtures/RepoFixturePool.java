@@ -0,0 +1,231 @@
+package utils.fixtures;
+
+import io.restassured.response.Response;
+import utils.api.ApiSpecs;
+import utils.api.ReadAfterWrite;
+import utils.api.RepoNames;
+import utils.auth.Credential;
+import utils.auth.CredentialPool;
+import utils.config.Config;
+import utils.models.ModelCodec;
+import utils.models.Repo;
+import utils.models.RepoCreateRequest;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Pool of throwaway repositories created ahead of time, so tests that need an existing repo to edit or
+ * delete only pay for a queue poll. Repos handed back with {@link #release} are recycled as they are;
+ * repos the test deleted are reported with {@link #consumed} and replaced in the background. A new repo joins
+ * the pool only once it can be read back, so tests never lease one the API does not show yet.
+ * Each credential of the {@link CredentialPool} has its own repos; {@link #ownerOf} tells which one owns a lease.
+ * A lease fails as soon as every provisioning attempt it waited on has failed, rather than at the lease timeout.
+ */
+public final class RepoFixturePool {
+
+    // How often a waiting lease checks whether provisioning has failed
+    private static final long FAILURE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final RepoFixturePool INSTANCE = new RepoFixturePool(
+            Config.get().getInt("FIXTURE_POOL_SIZE"),
+            Config.get().getLong("FIXTURE_LEASE_TIMEOUT_SECONDS"));
+
+    // One pool per credential, since a repo can only be edited or deleted by the identity that owns it
+    private final Map<Credential, BlockingQueue<String>> ready = new ConcurrentHashMap<>();
+    private final Map<Credential, AtomicInteger> provisioning = new ConcurrentHashMap<>();
+    private final Map<Credential, AtomicInteger> failures = new ConcurrentHashMap<>();
+    private final Map<String, Credential> owners = new ConcurrentHashMap<>();
+    private final ExecutorService provisioner;
+    private final int size;
+    private final long leaseTimeoutSeconds;
+    private volatile Throwable lastFailure;
+    // Set by drain until the next warm-up: repos provisioned meanwhile go straight to cleanup
+    private volatile boolean draining;
+
+    private RepoFixturePool(int size, long leaseTimeoutSeconds) {
+        this.size = Math.max(1, size);
+        this.leaseTimeoutSeconds = leaseTimeoutSeconds;
+        this.provisioner = Executors.newFixedThreadPool(this.size, runnable -> {
+            Thread thread = new Thread(runnable, "repo-fixture-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static RepoFixturePool get() {
+        return INSTANCE;
+    }
+
+    // Starts provisioning up to the pool size for every credential; called automatically on the first lease
+    public void warmUp() {
+        draining = false;
+        CredentialPool.get().all().forEach(this::warmUp);
+    }
+
+    // Leases a repository owned by the calling thread's credential
+    public String lease() {
+        Credential credential = CredentialPool.get().current();
+        int failuresBefore = failures(credential).get();
+        warmUp(credential);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(leaseTimeoutSeconds);
+        try {
+            long left;
+            while ((left = deadline - System.nanoTime()) > 0) {
+                String repoName = queue(credential).poll(Math.min(left, FAILURE_CHECK_NANOS), TimeUnit.NANOSECONDS);
+                if (repoName != null) {
+                    return repoName;
+                }
+                // Nothing left in flight and provisioning failed meanwhile: waiting longer cannot help
+                if (provisioning(credential).get() == 0 && failures(credential).get() != failuresBefore
+                        && queue(credential).isEmpty()) {
+                    throw new IllegalStateException("Provisioning fixture repositories of " + credential + " failed",
+                            lastFailure);
+                }
+            }
+            throw new IllegalStateException("No fixture repository of " + credential + " became available within "
+                    + leaseTimeoutSeconds + " s", lastFailure);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while leasing a fixture repository", ex);
+        }
+    }
+
+    // The credential that created a leased repository; use its owner and token for every request to it
+    public Credential ownerOf(String repoName) {
+        Credential credential = owners.get(repoName);
+        if (credential == null) {
+            throw new IllegalArgumentException(repoName + " was not provisioned by the fixture pool");
+        }
+        return credential;
+    }
+
+    // The repository still exists and can be handed to the next test
+    public void release(String repoName) {
+        Credential credential = ownerOf(repoName);
+        if (draining) {
+            owners.remove(repoName);
+            RepoCleanup.get().delete(credential.owner(), repoName);
+        } else {
+            queue(credential).offer(repoName);
+        }
+    }
+
+    // The repository was deleted (or renamed) by the test; provision a replacement
+    public void consumed(String repoName) {
+        Credential credential = ownerOf(repoName);
+        owners.remove(repoName);
+        provisionInBackground(credential);
+    }
+
+    /**
+     * Hands every repository still waiting in the pool to the cleanup queue. Waits up to the lease timeout for
+     * provisioning still in flight, whose repos would otherwise be queued after the drain and never deleted;
+     * any that finish later are handed to cleanup as they complete.
+     */
+    public void drain() {
+        draining = true;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(leaseTimeoutSeconds);
+        synchronized (this) {
+            long left;
+            while (inFlight() > 0 && (left = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        if (inFlight() > 0) {
+            System.err.println("Fixture pool drained with " + inFlight() + " repositories still being provisioned");
+        }
+        ready.forEach((credential, queue) -> {
+            String repoName;
+            while ((repoName = queue.poll()) != null) {
+                owners.remove(repoName);
+                RepoCleanup.get().delete(credential.owner(), repoName);
+            }
+        });
+    }
+
+    private void warmUp(Credential credential) {
+        while (!draining && queue(credential).size() + provisioning(credential).get() < size) {
+            provisionInBackground(credential);
+        }
+    }
+
+    private BlockingQueue<String> queue(Credential credential) {
+        return ready.computeIfAbsent(credential, key -> new LinkedBlockingQueue<>());
+    }
+
+    private AtomicInteger provisioning(Credential credential) {
+        return provisioning.computeIfAbsent(credential, key -> new AtomicInteger());
+    }
+
+    private AtomicInteger failures(Credential credential) {
+        return failures.computeIfAbsent(credential, key -> new AtomicInteger());
+    }
+
+    private int inFlight() {
+        return provisioning.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    private void provisionInBackground(Credential credential) {
+        // Counted before the draining check, so drain either waits for this repo or it is never created
+        provisioning(credential).incrementAndGet();
+        if (draining) {
+            finished(credential);
+            return;
+        }
+        provisioner.execute(() -> {
+            try {
+                String repoName = create(credential);
+                if (draining) {
+                    RepoCleanup.get().delete(credential.owner(), repoName);
+                } else {
+                    owners.put(repoName, credential);
+                    queue(credential).offer(repoName);
+                }
+            } catch (RuntimeException | AssertionError ex) {
+                lastFailure = ex;
+                failures(credential).incrementAndGet();
+            } finally {
+                finished(credential);
+            }
+        });
+    }
+
+    private void finished(Credential credential) {
+        provisioning(credential).decrementAndGet();
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    private String create(Credential credential) {
+        String repoName = RepoNames.unique("testRepo");
+        byte[] requestBody = ModelCodec.encode(new RepoCreateRequest(repoName, "This is a pooled test repository"));
+
+        Response response = given()
+                .spec(ApiSpecs.spec())
+                .header(credential.authHeader())
+                .body(requestBody)
+                .when()
+                .post("/user/repos")
+                .then()
+                .statusCode(201)
+                .extract().response();
+        String created = ModelCodec.decode(response, Repo.class).getName();
+        ReadAfterWrite.repoVisible(credential.authHeader(), credential.owner(), created);
+        return created;
+    }
+}
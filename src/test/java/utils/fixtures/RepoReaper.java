@@ -0,0 +1,84 @@
+package utils.fixtures;
+
+import utils.api.RepoNames;
+import utils.api.RepoPages;
+import utils.auth.Credential;
+import utils.auth.CredentialPool;
+import utils.config.Config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Finds repositories leaked by crashed runs and deletes them. Pages through /user/repos of every
+ * {@link CredentialPool} identity with {@link RepoPages} and selects repos older than REAPER_TTL_MINUTES whose whole
+ * name is one {@link RepoNames#unique} generated for one of REAPER_PREFIXES, i.e. {@code <prefix>_<run id>_<sequence>},
+ * or one of the names the suite used before that: {@code testRepo_<millis>}, {@code my-repo} and {@code my-repo2}.
+ * A repo that merely starts with a prefix, such as my-repository-notes, is never touched.
+ * The deletions go through {@link RepoCleanup}, so they run in parallel batches.
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=utils.fixtures.RepoReaper -Dexec.classpathScope=test
+ */
+public final class RepoReaper {
+
+    // Left by runs from before RepoNames: DeleteRepo's testRepo_<millis> and CreateRepo's fixed names
+    private static final List<Pattern> LEGACY_NAMES = Arrays.asList(
+            Pattern.compile("testRepo_\\d{13}"), Pattern.compile("my-repo"), Pattern.compile("my-repo2"));
+
+    private final List<Pattern> generated = new ArrayList<>(LEGACY_NAMES);
+    private final Duration ttl;
+
+    public RepoReaper(String[] prefixes, Duration ttl) {
+        for (String prefix : prefixes) {
+            generated.add(RepoNames.generatedPattern(prefix));
+        }
+        this.ttl = ttl;
+    }
+
+    // Returns the full names of the repositories that were queued for deletion
+    public List<String> reap() {
+        Instant cutoff = Instant.now().minus(ttl);
+        List<String> reaped = new ArrayList<>();
+
+        for (Credential credential : CredentialPool.get().all()) {
+            try (Stream<Map<String, Object>> repos = RepoPages.stream(credential.authHeader())) {
+                repos.filter(repo -> isGenerated((String) repo.get("name")))
+                        .filter(repo -> Instant.parse((String) repo.get("created_at")).isBefore(cutoff))
+                        .forEach(repo -> {
+                            String owner = (String) ((Map<?, ?>) repo.get("owner")).get("login");
+                            RepoCleanup.get().delete(owner, (String) repo.get("name"));
+                            reaped.add(owner + "/" + repo.get("name"));
+                        });
+            }
+        }
+
+        RepoCleanup.get().drain();
+        return reaped;
+    }
+
+    // Whether a repo of this name was left by a test run; its age is checked separately
+    public boolean isGenerated(String name) {
+        for (Pattern pattern : generated) {
+            if (pattern.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) {
+        RepoReaper reaper = new RepoReaper(
+                Config.get().getList("REAPER_PREFIXES").toArray(new String[0]),
+                Duration.ofMinutes(Config.get().getLong("REAPER_TTL_MINUTES")));
+
+        List<String> reaped = reaper.reap();
+        reaped.forEach(name -> System.out.println("Deleted " + name));
+        System.out.println("Reaped " + reaped.size() + " leaked repositories");
+    }
+}
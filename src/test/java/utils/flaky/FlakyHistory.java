@@ -0,0 +1,158 @@
+package utils.flaky;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Outcomes of rerun-eligible test invocations across runs, one line per invocation key
+ * ({@code class#method}, or {@code class#method[row]} for a data provider row):
+ * {@code runs,flakyRuns,failedRuns,score} followed by {@code ,quarantined} while it is quarantined.
+ * <p>
+ * The score is an exponential moving average of "failed, then passed on a rerun" over the runs, so a test that
+ * flakes often scores high and recovers gradually once it stops. A test is quarantined once it has been seen in
+ * {@code minRuns} runs and scores at least {@code quarantineScore}, and released when its score falls below half
+ * of that. Runs that failed on every attempt count as failed, not flaky: a broken test is not quarantined.
+ * The file is rewritten under a file lock, so forked JVMs such as shards can merge into it one after another.
+ */
+public final class FlakyHistory {
+
+    public enum Outcome {
+        PASSED, FLAKY, FAILED
+    }
+
+    private static final String QUARANTINED = "quarantined";
+
+    private final Path file;
+    private final double weightOfNew;
+    private final int minRuns;
+    private final double quarantineScore;
+
+    public FlakyHistory(Path file, double weightOfNew, int minRuns, double quarantineScore) {
+        this.file = file;
+        this.weightOfNew = weightOfNew;
+        this.minRuns = minRuns;
+        this.quarantineScore = quarantineScore;
+    }
+
+    public Set<String> quarantined() {
+        Set<String> quarantined = new TreeSet<>();
+        if (Files.isRegularFile(file)) {
+            try {
+                parse(new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1)).forEach((key, entry) -> {
+                    if (entry.quarantined) {
+                        quarantined.add(key);
+                    }
+                });
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not read flaky-test history " + file, ex);
+            }
+        }
+        return quarantined;
+    }
+
+    // Adds one run's outcomes to the file and describes every invocation that entered or left quarantine
+    public synchronized List<String> merge(Map<String, Outcome> observed) {
+        List<String> changes = new ArrayList<>();
+        try {
+            if (file.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    rewrite(channel, observed, changes);
+                } finally {
+                    lock.release();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not update flaky-test history " + file, ex);
+        }
+        return changes;
+    }
+
+    private void rewrite(FileChannel channel, Map<String, Outcome> observed, List<String> changes) throws IOException {
+        ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+        for (int read = 0; read >= 0 && content.hasRemaining(); ) {
+            read = channel.read(content, content.position());
+        }
+        Map<String, Entry> history = parse(new String(content.array(), 0, content.position(), StandardCharsets.ISO_8859_1));
+        observed.forEach((key, outcome) -> update(key, history.computeIfAbsent(key, k -> new Entry()), outcome, changes));
+
+        ByteBuffer text = ByteBuffer.wrap(format(history).getBytes(StandardCharsets.ISO_8859_1));
+        channel.truncate(0);
+        while (text.hasRemaining()) {
+            channel.write(text, text.position());
+        }
+    }
+
+    private void update(String key, Entry entry, Outcome outcome, List<String> changes) {
+        entry.runs++;
+        entry.flakyRuns += outcome == Outcome.FLAKY ? 1 : 0;
+        entry.failedRuns += outcome == Outcome.FAILED ? 1 : 0;
+        double flaked = outcome == Outcome.FLAKY ? 1 : 0;
+        entry.score = entry.score * (1 - weightOfNew) + flaked * weightOfNew;
+
+        if (!entry.quarantined && entry.runs >= minRuns && entry.score >= quarantineScore) {
+            entry.quarantined = true;
+            changes.add(String.format(Locale.ROOT, "quarantined %s: flaky in %d of %d runs, score %.3f",
+                    key, entry.flakyRuns, entry.runs, entry.score));
+        } else if (entry.quarantined && entry.score < quarantineScore / 2) {
+            entry.quarantined = false;
+            changes.add(String.format(Locale.ROOT, "released %s from quarantine: score %.3f", key, entry.score));
+        }
+    }
+
+    private static Map<String, Entry> parse(String text) {
+        Map<String, Entry> history = new TreeMap<>();
+        for (String line : text.split("\n")) {
+            int separator = line.indexOf('=');
+            if (line.isEmpty() || line.startsWith("#") || separator < 0) {
+                continue;
+            }
+            String[] fields = line.substring(separator + 1).trim().split(",");
+            Entry entry = new Entry();
+            entry.runs = Integer.parseInt(fields[0]);
+            entry.flakyRuns = Integer.parseInt(fields[1]);
+            entry.failedRuns = Integer.parseInt(fields[2]);
+            entry.score = Double.parseDouble(fields[3]);
+            entry.quarantined = fields.length > 4 && QUARANTINED.equals(fields[4]);
+            history.put(line.substring(0, separator), entry);
+        }
+        return history;
+    }
+
+    // Sorted and one line per key, so the file stays diffable
+    private static String format(Map<String, Entry> history) {
+        StringBuilder text = new StringBuilder("# Flaky-test history: runs,flakyRuns,failedRuns,score[,quarantined]\n");
+        history.forEach((key, entry) -> text.append(key).append('=')
+                .append(entry.runs).append(',').append(entry.flakyRuns).append(',').append(entry.failedRuns).append(',')
+                .append(String.format(Locale.ROOT, "%.3f", entry.score))
+                .append(entry.quarantined ? "," + QUARANTINED : "")
+                .append('\n'));
+        return text.toString();
+    }
+
+    private static final class Entry {
+        int runs;
+        int flakyRuns;
+        int failedRuns;
+        double score;
+        boolean quarantined;
+    }
+}
@@ -0,0 +1,16 @@
+package utils.flaky;
+
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestResult;
+
+/**
+ * Reruns a failed invocation straight away, up to FLAKY_MAX_RERUNS times per invocation and run.
+ * Set on the tests of FLAKY_RERUN_PACKAGES by the {@link FlakyTestListener}.
+ */
+public class FlakyRetryAnalyzer implements IRetryAnalyzer {
+
+    @Override
+    public boolean retry(ITestResult result) {
+        return FlakyTestListener.shouldRerun(result);
+    }
+}
@@ -0,0 +1,175 @@
+package utils.flaky;
+
+import org.testng.IAnnotationTransformer;
+import org.testng.IExecutionListener;
+import org.testng.IHookCallBack;
+import org.testng.IHookable;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+import org.testng.annotations.ITestAnnotation;
+import utils.config.Config;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Reruns failing tests of FLAKY_RERUN_PACKAGES straight away, keeps their outcomes in FLAKY_HISTORY_FILE and
+ * quarantines the chronically flaky ones.
+ * <ul>
+ *     <li>A failed invocation is rerun by {@link FlakyRetryAnalyzer} on the worker that ran it, up to
+ *     FLAKY_MAX_RERUNS times, so in a parallel suite failures are retried concurrently with each other and with
+ *     the rest of the suite instead of in a second run. Only the failed invocation is rerun, down to the data
+ *     provider row; a pass on a rerun makes the test pass and marks the invocation flaky for this run.</li>
+ *     <li>At the end of the run every invocation's outcome (passed, flaky or failed) is merged into the
+ *     {@link FlakyHistory}, which scores flakiness and decides what is quarantined.</li>
+ *     <li>With FLAKY_QUARANTINE_MODE=exclude, quarantined invocations are skipped, so they no longer block the
+ *     build; with only, nothing else runs. The quarantine Maven profile runs them that way without failing the
+ *     build, which keeps their history current so they can be released again.</li>
+ * </ul>
+ */
+public class FlakyTestListener implements IAnnotationTransformer, IMethodInterceptor, IHookable, ITestListener,
+        IExecutionListener {
+
+    private enum Mode {
+        EXCLUDE, ONLY, OFF
+    }
+
+    private static final List<String> PACKAGES = Config.get().getList("FLAKY_RERUN_PACKAGES");
+    private static final int MAX_RERUNS = Config.get().getInt("FLAKY_MAX_RERUNS");
+    private static final Mode MODE = Mode.valueOf(Config.get().getString("FLAKY_QUARANTINE_MODE").toUpperCase(Locale.ROOT));
+
+    // Per invocation key, for the current run: reruns used, failed attempts and whether an attempt passed
+    private static final Map<String, AtomicInteger> RERUNS = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> FAILURES = new ConcurrentHashMap<>();
+    private static final Set<String> PASSED = ConcurrentHashMap.newKeySet();
+    private static volatile Set<String> quarantined = Collections.emptySet();
+
+    // class#method, plus a hash of the parameters for a data provider row
+    public static String key(ITestResult result) {
+        return key(result.getTestClass().getName(), result.getMethod().getMethodName(), result.getParameters());
+    }
+
+    public static String key(String className, String methodName, Object[] parameters) {
+        String key = className + "#" + methodName;
+        if (parameters == null || parameters.length == 0) {
+            return key;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(Arrays.deepToString(parameters).getBytes(StandardCharsets.UTF_8));
+        return key + String.format("[%08x]", crc.getValue());
+    }
+
+    static boolean shouldRerun(ITestResult result) {
+        return eligible(result.getTestClass().getRealClass())
+                && RERUNS.computeIfAbsent(key(result), key -> new AtomicInteger()).incrementAndGet() <= MAX_RERUNS;
+    }
+
+    // The raw types are part of TestNG's IAnnotationTransformer signature
+    @SuppressWarnings("rawtypes")
+    @Override
+    public void transform(ITestAnnotation annotation, Class testClass, Constructor testConstructor, Method testMethod) {
+        Class<?> owner = testMethod != null ? testMethod.getDeclaringClass() : testClass;
+        if (owner != null && eligible(owner) && MAX_RERUNS > 0) {
+            annotation.setRetryAnalyzer(FlakyRetryAnalyzer.class);
+        }
+    }
+
+    // In only mode, drops the methods without a quarantined invocation before their classes are set up
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (MODE != Mode.ONLY) {
+            return methods;
+        }
+        return methods.stream().filter(instance -> {
+            ITestNGMethod method = instance.getMethod();
+            String prefix = method.getTestClass().getName() + "#" + method.getMethodName();
+            return quarantined.stream().anyMatch(key -> key.equals(prefix) || key.startsWith(prefix + "["));
+        }).collect(Collectors.toList());
+    }
+
+    @Override
+    public void run(IHookCallBack callBack, ITestResult testResult) {
+        boolean isQuarantined = quarantined.contains(key(testResult));
+        if (MODE == Mode.EXCLUDE && isQuarantined) {
+            throw new SkipException("Quarantined as flaky, runs with -Pquarantine");
+        }
+        if (MODE == Mode.ONLY && !isQuarantined) {
+            throw new SkipException("Not quarantined");
+        }
+        callBack.runTestMethod(testResult);
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        if (eligible(result.getTestClass().getRealClass())) {
+            PASSED.add(key(result));
+        }
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        if (eligible(result.getTestClass().getRealClass())) {
+            FAILURES.computeIfAbsent(key(result), key -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    // An attempt that is rerun is reported as skipped
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        if (result.wasRetried()) {
+            onTestFailure(result);
+        }
+    }
+
+    @Override
+    public void onExecutionStart() {
+        RERUNS.clear();
+        FAILURES.clear();
+        PASSED.clear();
+        quarantined = MODE == Mode.OFF ? Collections.emptySet() : history().quarantined();
+    }
+
+    @Override
+    public void onExecutionFinish() {
+        Map<String, FlakyHistory.Outcome> observed = new TreeMap<>();
+        PASSED.forEach(key -> observed.put(key, FAILURES.containsKey(key) ? FlakyHistory.Outcome.FLAKY : FlakyHistory.Outcome.PASSED));
+        FAILURES.keySet().forEach(key -> observed.putIfAbsent(key, FlakyHistory.Outcome.FAILED));
+        if (observed.isEmpty()) {
+            return;
+        }
+        observed.forEach((key, outcome) -> {
+            if (outcome == FlakyHistory.Outcome.FLAKY) {
+                System.out.println("Flaky: " + key + " passed after " + FAILURES.get(key) + " failed attempt(s)");
+            }
+        });
+        history().merge(observed).forEach(change -> System.out.println("Flaky: " + change));
+    }
+
+    private static FlakyHistory history() {
+        Config config = Config.get();
+        return new FlakyHistory(config.getPath("FLAKY_HISTORY_FILE"), config.getDouble("FLAKY_SCORE_WEIGHT"),
+                config.getInt("FLAKY_MIN_RUNS"), config.getDouble("FLAKY_QUARANTINE_SCORE"));
+    }
+
+    private static boolean eligible(Class<?> testClass) {
+        String name = testClass.getName();
+        return PACKAGES.stream().anyMatch(prefix -> name.startsWith(prefix + "."));
+    }
+}
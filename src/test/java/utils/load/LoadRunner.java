@@ -0,0 +1,151 @@
+package utils.load;
+
+import groovy.json.JsonOutput;
+import org.HdrHistogram.Histogram;
+import utils.config.Config;
+import utils.fixtures.RepoCleanup;
+import utils.metrics.LatencyHistograms;
+import utils.stub.LocalStub;
+import utils.transport.HttpTransports;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives {@link RepoLifecycleScenario} as a sustained load test and reports per-operation throughput and
+ * latency percentiles.
+ * <p>
+ * With LOAD_RATE_PER_SECOND = 0 the run is closed-loop: LOAD_CONCURRENCY workers repeat the lifecycle
+ * back to back. With a positive rate it is open-loop: lifecycles start on a fixed schedule regardless of
+ * how fast earlier ones finish, and the "lifecycle" latency is measured from the scheduled start, so
+ * queueing caused by a saturated target is not hidden (coordinated omission).
+ * Workers are a fixed pool of platform threads. Run once per HTTP_TRANSPORT (with different LOAD_REPORT_FILEs)
+ * to compare the transports under the same load.
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=utils.load.LoadRunner -Dexec.classpathScope=test
+ * -DBASE_URL=http://localhost:8089 -DRATE_LIMIT_CONTENT_PER_MINUTE=0
+ */
+public final class LoadRunner {
+
+    public static final String LIFECYCLE = "lifecycle";
+
+    private final int concurrency;
+    private final double ratePerSecond;
+    private final long durationNanos;
+    private final RepoLifecycleScenario scenario = new RepoLifecycleScenario();
+    private final LatencyHistograms histograms = new LatencyHistograms();
+
+    public LoadRunner(int concurrency, double ratePerSecond, long durationSeconds) {
+        this.concurrency = concurrency;
+        this.ratePerSecond = ratePerSecond;
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+    }
+
+    public LatencyHistograms histograms() {
+        return histograms;
+    }
+
+    // Runs the load and returns the elapsed wall-clock time in nanoseconds
+    public long run() throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "load-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+
+        if (ratePerSecond > 0) {
+            long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+            for (long intendedStart = start; intendedStart < end; intendedStart += periodNanos) {
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long scheduled = intendedStart;
+                workers.execute(() -> iteration(scheduled));
+            }
+        } else {
+            for (int i = 0; i < concurrency; i++) {
+                workers.execute(() -> {
+                    while (System.nanoTime() < end) {
+                        iteration(System.nanoTime());
+                    }
+                });
+            }
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(durationNanos + TimeUnit.MINUTES.toNanos(1), TimeUnit.NANOSECONDS)) {
+            workers.shutdownNow();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void iteration(long scheduledStart) {
+        if (scenario.run(histograms)) {
+            histograms.record(LIFECYCLE, System.nanoTime() - scheduledStart);
+        } else {
+            histograms.recordError(LIFECYCLE);
+        }
+    }
+
+    public static Map<String, Object> report(LatencyHistograms histograms, long elapsedNanos) {
+        double elapsedSeconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        Map<String, Object> report = new LinkedHashMap<>();
+        histograms.snapshot().forEach((operation, histogram) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("count", histogram.getTotalCount());
+            row.put("errors", histograms.errors(operation));
+            row.put("throughputPerSecond", round(histogram.getTotalCount() / elapsedSeconds));
+            row.put("p50Ms", millis(histogram, 50));
+            row.put("p99Ms", millis(histogram, 99));
+            row.put("p999Ms", millis(histogram, 99.9));
+            row.put("maxMs", round(histogram.getMaxValue() / 1000.0));
+            report.put(operation, row);
+        });
+        return report;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return round(histogram.getValueAtPercentile(percentile) / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        LocalStub.startIfLocal();
+        LoadRunner runner = new LoadRunner(
+                Config.get().getInt("LOAD_CONCURRENCY"),
+                Config.get().getDouble("LOAD_RATE_PER_SECOND"),
+                Config.get().getLong("LOAD_DURATION_SECONDS"));
+
+        System.out.println("Transport: " + HttpTransports.configured().name());
+        long elapsedNanos = runner.run();
+        RepoCleanup.get().drain();
+        LocalStub.stop();
+
+        Map<String, Object> report = report(runner.histograms(), elapsedNanos);
+        System.out.printf("%-30s %8s %7s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "ops/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        report.forEach((operation, values) -> {
+            Map<?, ?> row = (Map<?, ?>) values;
+            System.out.printf("%-30s %8s %7s %9s %9s %9s %9s %9s%n", operation, row.get("count"), row.get("errors"),
+                    row.get("throughputPerSecond"), row.get("p50Ms"), row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs"));
+        });
+
+        Path reportFile = Config.get().getPath("LOAD_REPORT_FILE");
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        Files.write(reportFile, JsonOutput.prettyPrint(JsonOutput.toJson(report)).getBytes(StandardCharsets.UTF_8));
+        System.out.println("Report written to " + reportFile);
+    }
+}
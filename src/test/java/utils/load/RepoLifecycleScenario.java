@@ -0,0 +1,94 @@
+package utils.load;
+
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import utils.api.ApiSpecs;
+import utils.api.RepoNames;
+import utils.auth.Credential;
+import utils.auth.CredentialPool;
+import utils.fixtures.RepoCleanup;
+import utils.metrics.LatencyHistograms;
+import utils.models.ModelCodec;
+import utils.models.RepoCreateRequest;
+import utils.models.RepoUpdateRequest;
+
+import java.util.function.Supplier;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * The create -> get -> edit -> delete lifecycle covered by CreateRepo, GetRepo, EditRepo and DeleteRepo,
+ * sending the same requests and expecting the same status codes as their positive tests.
+ * Each step's latency is recorded under its endpoint; a failed step ends the iteration.
+ */
+public class RepoLifecycleScenario {
+
+    // The same for every iteration, so serialized once
+    private static final byte[] EDIT_BODY = ModelCodec.encode(RepoUpdateRequest.description("Updated description only string"));
+
+    public boolean run(LatencyHistograms histograms) {
+        // Every iteration leases a credential, so the load spreads over all configured identities
+        CredentialPool.Lease lease = CredentialPool.get().acquire();
+        try {
+            return run(histograms, CredentialPool.get().current());
+        } finally {
+            lease.close();
+        }
+    }
+
+    private boolean run(LatencyHistograms histograms, Credential credential) {
+        String ownerUsername = credential.owner();
+        Header authHeader = credential.authHeader();
+        String repoName = RepoNames.unique("my-repo");
+        byte[] createBody = ModelCodec.encode(new RepoCreateRequest(repoName, "This is a test repository"));
+
+        boolean created = step(histograms, "POST /user/repos", 201, () -> given()
+                .spec(ApiSpecs.spec())
+                .header(authHeader)
+                .body(createBody)
+                .when()
+                .post("/user/repos"));
+        if (!created) {
+            return false;
+        }
+
+        boolean completed = step(histograms, "GET /repos/{owner}/{repo}", 200, () -> given()
+                .spec(ApiSpecs.spec())
+                .header(authHeader)
+                .when()
+                .get("/repos/{owner}/{repo}", ownerUsername, repoName))
+                && step(histograms, "PATCH /repos/{owner}/{repo}", 200, () -> given()
+                .spec(ApiSpecs.spec())
+                .header(authHeader)
+                .body(EDIT_BODY)
+                .when()
+                .patch("/repos/{owner}/{repo}", ownerUsername, repoName))
+                && step(histograms, "DELETE /repos/{owner}/{repo}", 204, () -> given()
+                .spec(ApiSpecs.spec())
+                .header(authHeader)
+                .when()
+                .delete("/repos/{owner}/{repo}", ownerUsername, repoName));
+
+        // Never leave a repository behind when the lifecycle stops half-way
+        if (!completed) {
+            RepoCleanup.get().delete(ownerUsername, repoName);
+        }
+        return completed;
+    }
+
+    private static boolean step(LatencyHistograms histograms, String operation, int expectedStatus, Supplier<Response> request) {
+        long start = System.nanoTime();
+        try {
+            int status = request.get().statusCode();
+            histograms.record(operation, System.nanoTime() - start);
+            if (status != expectedStatus) {
+                histograms.recordError(operation);
+                return false;
+            }
+            return true;
+        } catch (RuntimeException | AssertionError ex) {
+            histograms.recordError(operation);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package utils.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one request sent through the API specs, committed by the {@link LatencyFilter}.
+ * Costs next to nothing unless a recording has it enabled, e.g. the soak runner's or
+ * -XX:StartFlightRecording=settings=profile.
+ */
+@Name("utils.metrics.ApiCall")
+@Label("API Call")
+@Category({"GitHub API Tests", "HTTP"})
+@Description("A request to the GitHub API, timed like the latency reports")
+@StackTrace(false)
+public class ApiCallEvent extends Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Status")
+    @Description("HTTP status, or 0 when the request failed without a response")
+    int status;
+
+    @Label("Request Bytes")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Bytes")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Latency")
+    @Description("Time to the response, without time spent waiting on the rate limit")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
@@ -0,0 +1,48 @@
+package utils.metrics;
+
+import io.restassured.specification.FilterableRequestSpecification;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Maps a request to its templated endpoint, e.g. {@code PATCH /repos/{owner}/{repo}}, so requests built by
+ * concatenating names into the path are counted together with those using path parameters.
+ */
+public final class EndpointTemplates {
+
+    private static final Pattern[] PATTERNS = {
+            Pattern.compile("^/repos/[^/]+/[^/]+$"),
+            Pattern.compile("^/users/[^/]+/repos$"),
+    };
+
+    private static final String[] TEMPLATES = {
+            "/repos/{owner}/{repo}",
+            "/users/{username}/repos",
+    };
+
+    private EndpointTemplates() {
+    }
+
+    public static String of(FilterableRequestSpecification requestSpec) {
+        return of(requestSpec.getMethod(), requestSpec.getUserDefinedPath(), requestSpec.getURI());
+    }
+
+    public static String of(String method, String userDefinedPath, String uri) {
+        String path = userDefinedPath != null && userDefinedPath.contains("{") && !userDefinedPath.contains("://")
+                ? userDefinedPath
+                : template(URI.create(uri).getRawPath());
+        return method.toUpperCase(Locale.ROOT) + " " + path;
+    }
+
+    public static String template(String path) {
+        String trimmed = path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        for (int i = 0; i < PATTERNS.length; i++) {
+            if (PATTERNS[i].matcher(trimmed).matches()) {
+                return TEMPLATES[i];
+            }
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,62 @@
+package utils.metrics;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import utils.api.RateLimitScheduler;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Times every request and records it in {@link RequestMetrics} under its templated endpoint.
+ * Runs just before the retry filter, so retries and their backoff count towards the request's latency;
+ * time spent waiting on the rate-limit scheduler does not. Every request is also an {@link ApiCallEvent}
+ * for Flight Recorder.
+ */
+public class LatencyFilter implements OrderedFilter {
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        String endpoint = EndpointTemplates.of(requestSpec);
+        ApiCallEvent event = new ApiCallEvent();
+        event.begin();
+        RequestTimings.reset();
+        long waitedBefore = RateLimitScheduler.waitedNanos();
+        long start = System.nanoTime();
+        try {
+            Response response = ctx.next(requestSpec, responseSpec);
+            long elapsed = System.nanoTime() - start - (RateLimitScheduler.waitedNanos() - waitedBefore);
+            RequestMetrics.current().record(endpoint, elapsed, RequestTimings.current());
+            commit(event, endpoint, requestSpec, response, elapsed);
+            return response;
+        } catch (RuntimeException ex) {
+            RequestMetrics.current().recordError(endpoint);
+            commit(event, endpoint, requestSpec, null, System.nanoTime() - start - (RateLimitScheduler.waitedNanos() - waitedBefore));
+            throw ex;
+        }
+    }
+
+    private static void commit(ApiCallEvent event, String endpoint, FilterableRequestSpecification requestSpec,
+                               Response response, long elapsed) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        Object body = requestSpec.getBody();
+        event.endpoint = endpoint;
+        event.status = response == null ? 0 : response.getStatusCode();
+        event.requestBytes = body == null ? 0
+                : body instanceof byte[] ? ((byte[]) body).length : body.toString().getBytes(StandardCharsets.UTF_8).length;
+        event.responseBytes = response == null ? 0 : response.asByteArray().length;
+        event.latency = elapsed;
+        event.commit();
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 1;
+    }
+}
@@ -0,0 +1,46 @@
+package utils.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe latency histograms keyed by operation name. Values are recorded in microseconds
+ * with three significant digits, up to one hour.
+ */
+public final class LatencyHistograms {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    public void record(String operation, long nanos) {
+        long micros = Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        histograms.computeIfAbsent(operation, key -> new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3))
+                .recordValue(micros);
+    }
+
+    public void recordError(String operation) {
+        errors.computeIfAbsent(operation, key -> new LongAdder()).increment();
+    }
+
+    public long errors(String operation) {
+        LongAdder count = errors.get(operation);
+        return count == null ? 0 : count.sum();
+    }
+
+    // Copies of the current histograms, sorted by operation name
+    public Map<String, Histogram> snapshot() {
+        Map<String, Histogram> copy = new TreeMap<>();
+        histograms.forEach((operation, histogram) -> copy.put(operation, histogram.copy()));
+        errors.keySet().forEach(operation -> copy.computeIfAbsent(operation,
+                key -> new Histogram(HIGHEST_TRACKABLE_MICROS, 3)));
+        return copy;
+    }
+}
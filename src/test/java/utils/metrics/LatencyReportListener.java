@@ -0,0 +1,123 @@
+package utils.metrics;
+
+import groovy.json.JsonOutput;
+import org.HdrHistogram.Histogram;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import utils.config.Config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes a per-suite latency report, {@code <suite>.json} and {@code <suite>.csv} in LATENCY_REPORT_DIR,
+ * with request count, errors and percentiles for every templated endpoint, plus retry and hedge counts in the JSON.
+ * The JSON also lists, per read-after-write operation, how long writes took to become visible and how often they
+ * did not within the deadline.
+ * Compare the files of two runs to spot latency regressions.
+ */
+public class LatencyReportListener implements ISuiteListener {
+
+    private static final String[] PHASES = {RequestMetrics.DNS, RequestMetrics.CONNECT, RequestMetrics.TTFB};
+
+    @Override
+    public void onStart(ISuite suite) {
+        RequestMetrics.reset();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        RequestMetrics metrics = RequestMetrics.reset();
+        Map<String, Histogram> totals = metrics.snapshot(RequestMetrics.TOTAL);
+        if (totals.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        StringBuilder csv = new StringBuilder("endpoint,count,errors,p50_ms,p90_ms,p99_ms,max_ms,"
+                + "dns_p50_ms,connect_p50_ms,ttfb_p50_ms,ttfb_p99_ms\n");
+        totals.forEach((endpoint, total) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("count", total.getTotalCount());
+            row.put("errors", metrics.errors(endpoint));
+            row.put(RequestMetrics.TOTAL, percentiles(total));
+            for (String phase : PHASES) {
+                Histogram histogram = metrics.snapshot(phase).get(endpoint);
+                if (histogram != null) {
+                    row.put(phase, percentiles(histogram));
+                }
+            }
+            Map<String, Long> events = metrics.events(endpoint);
+            if (!events.isEmpty()) {
+                row.put("events", events);
+            }
+            endpoints.put(endpoint, row);
+
+            csv.append('"').append(endpoint).append('"')
+                    .append(',').append(total.getTotalCount())
+                    .append(',').append(metrics.errors(endpoint))
+                    .append(',').append(format(RequestMetrics.millis(total, 50)))
+                    .append(',').append(format(RequestMetrics.millis(total, 90)))
+                    .append(',').append(format(RequestMetrics.millis(total, 99)))
+                    .append(',').append(format(RequestMetrics.millis(total, 100)))
+                    .append(',').append(format(phaseMillis(metrics, RequestMetrics.DNS, endpoint, 50)))
+                    .append(',').append(format(phaseMillis(metrics, RequestMetrics.CONNECT, endpoint, 50)))
+                    .append(',').append(format(phaseMillis(metrics, RequestMetrics.TTFB, endpoint, 50)))
+                    .append(',').append(format(phaseMillis(metrics, RequestMetrics.TTFB, endpoint, 99)))
+                    .append('\n');
+        });
+
+        Map<String, Object> convergence = new LinkedHashMap<>();
+        metrics.snapshot(RequestMetrics.CONVERGENCE).forEach((operation, histogram) -> {
+            Map<String, Object> row = percentiles(histogram);
+            row.put("timeouts", metrics.convergenceTimeouts(operation));
+            row.putAll(metrics.events(operation));
+            convergence.put(operation, row);
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("suite", suite.getName());
+        report.put("generatedAt", Instant.now().toString());
+        report.put("endpoints", endpoints);
+        if (!convergence.isEmpty()) {
+            report.put("convergence", convergence);
+        }
+
+        Path directory = Config.get().getPath("LATENCY_REPORT_DIR");
+        String fileName = suite.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        try {
+            Files.createDirectories(directory);
+            Files.write(directory.resolve(fileName + ".json"),
+                    JsonOutput.prettyPrint(JsonOutput.toJson(report)).getBytes(StandardCharsets.UTF_8));
+            Files.write(directory.resolve(fileName + ".csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write the latency report for " + suite.getName(), ex);
+        }
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("count", histogram.getTotalCount());
+        values.put("p50Ms", RequestMetrics.millis(histogram, 50));
+        values.put("p90Ms", RequestMetrics.millis(histogram, 90));
+        values.put("p99Ms", RequestMetrics.millis(histogram, 99));
+        values.put("maxMs", RequestMetrics.millis(histogram, 100));
+        return values;
+    }
+
+    private static double phaseMillis(RequestMetrics metrics, String phase, String endpoint, double percentile) {
+        Histogram histogram = metrics.snapshot(phase).get(endpoint);
+        return histogram == null ? 0 : RequestMetrics.millis(histogram, percentile);
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.3f", millis);
+    }
+}
@@ -0,0 +1,117 @@
+package utils.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency histograms for every request sent through the shared specs, split into
+ * total, DNS, connect and time-to-first-byte. DNS and connect are only recorded for requests that
+ * had to open a new connection. Retries, hedges and similar events are counted per endpoint alongside.
+ * Separately, the time writes took to become visible to reads is kept per consistency operation
+ * (see {@link utils.api.ReadAfterWrite}).
+ */
+public final class RequestMetrics {
+
+    public static final String TOTAL = "total";
+    public static final String DNS = "dns";
+    public static final String CONNECT = "connect";
+    public static final String TTFB = "ttfb";
+    public static final String CONVERGENCE = "convergence";
+
+    private static volatile RequestMetrics current = new RequestMetrics();
+
+    private final LatencyHistograms total = new LatencyHistograms();
+    private final LatencyHistograms dns = new LatencyHistograms();
+    private final LatencyHistograms connect = new LatencyHistograms();
+    private final LatencyHistograms ttfb = new LatencyHistograms();
+    private final LatencyHistograms convergence = new LatencyHistograms();
+    private final Map<String, Map<String, LongAdder>> events = new ConcurrentHashMap<>();
+
+    private RequestMetrics() {
+    }
+
+    public static RequestMetrics current() {
+        return current;
+    }
+
+    // Starts a fresh set of histograms and returns the one collected so far
+    public static RequestMetrics reset() {
+        RequestMetrics previous = current;
+        current = new RequestMetrics();
+        return previous;
+    }
+
+    public void record(String endpoint, long totalNanos, RequestTimings timings) {
+        total.record(endpoint, totalNanos);
+        if (timings.dnsNanos() > 0) {
+            dns.record(endpoint, timings.dnsNanos());
+        }
+        if (timings.connectNanos() > 0) {
+            connect.record(endpoint, timings.connectNanos());
+        }
+        if (timings.timeToFirstByteNanos() >= 0) {
+            ttfb.record(endpoint, timings.timeToFirstByteNanos());
+        }
+    }
+
+    public void recordError(String endpoint) {
+        total.recordError(endpoint);
+    }
+
+    public long errors(String endpoint) {
+        return total.errors(endpoint);
+    }
+
+    public void recordConvergence(String operation, long nanos) {
+        convergence.record(operation, nanos);
+    }
+
+    public void recordConvergenceTimeout(String operation) {
+        convergence.recordError(operation);
+    }
+
+    public long convergenceTimeouts(String operation) {
+        return convergence.errors(operation);
+    }
+
+    public void count(String endpoint, String event) {
+        events.computeIfAbsent(endpoint, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(event, key -> new LongAdder()).increment();
+    }
+
+    // Event counts of one endpoint, sorted by event name
+    public Map<String, Long> events(String endpoint) {
+        Map<String, Long> counts = new TreeMap<>();
+        Map<String, LongAdder> endpointEvents = events.get(endpoint);
+        if (endpointEvents != null) {
+            endpointEvents.forEach((event, count) -> counts.put(event, count.sum()));
+        }
+        return counts;
+    }
+
+    public Map<String, Histogram> snapshot(String phase) {
+        switch (phase) {
+            case DNS:
+                return dns.snapshot();
+            case CONNECT:
+                return connect.snapshot();
+            case TTFB:
+                return ttfb.snapshot();
+            case CONVERGENCE:
+                return convergence.snapshot();
+            default:
+                return total.snapshot();
+        }
+    }
+
+    public static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0
+                ? 0
+                : histogram.getValueAtPercentile(percentile) / (double) TimeUnit.MILLISECONDS.toMicros(1);
+    }
+}
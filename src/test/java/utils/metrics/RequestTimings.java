@@ -0,0 +1,67 @@
+package utils.metrics;
+
+/**
+ * Phase timestamps of the request currently executing on this thread. The Apache client runs each request
+ * on the caller's thread, so the connection-level hooks in HttpConnectionPool and the LatencyFilter
+ * meet here without any shared state.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = ThreadLocal.withInitial(RequestTimings::new);
+
+    long dnsNanos;
+    long connectNanos;
+    long sentAt;
+    long firstByteAt;
+
+    private RequestTimings() {
+    }
+
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    public static void reset() {
+        RequestTimings timings = CURRENT.get();
+        timings.dnsNanos = 0;
+        timings.connectNanos = 0;
+        timings.sentAt = 0;
+        timings.firstByteAt = 0;
+    }
+
+    public static void dnsResolved(long nanos) {
+        CURRENT.get().dnsNanos += nanos;
+    }
+
+    // Time to open the socket (and handshake TLS), excluding the DNS lookup it contains
+    public static void connected(long nanos) {
+        RequestTimings timings = CURRENT.get();
+        timings.connectNanos += Math.max(0, nanos - timings.dnsNanos);
+    }
+
+    public static void requestSent() {
+        CURRENT.get().sentAt = System.nanoTime();
+    }
+
+    public static void firstByteReceived() {
+        firstByteReceivedAt(System.nanoTime());
+    }
+
+    // For clients that read the response headers on a thread of their own
+    public static void firstByteReceivedAt(long nanoTime) {
+        CURRENT.get().firstByteAt = nanoTime;
+    }
+
+    public long dnsNanos() {
+        return dnsNanos;
+    }
+
+    public long connectNanos() {
+        return connectNanos;
+    }
+
+    // Time from handing the request to the connection until the response headers arrived, or -1 if unknown
+    public long timeToFirstByteNanos() {
+        return sentAt > 0 && firstByteAt >= sentAt ? firstByteAt - sentAt : -1;
+    }
+}
@@ -0,0 +1,51 @@
+package utils.models;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Error body returned by the API for 4xx responses. Validation failures (422) list the offending fields
+ * in errors.
+ */
+public final class ApiError {
+
+    private String message;
+    private String documentationUrl;
+    private List<Detail> errors = Collections.emptyList();
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getDocumentationUrl() {
+        return documentationUrl;
+    }
+
+    public List<Detail> getErrors() {
+        return errors;
+    }
+
+    public static final class Detail {
+
+        private String resource;
+        private String field;
+        private String code;
+        private String message;
+
+        public String getResource() {
+            return resource;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package utils.models;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Materializes parts of a streamed JSON document as plain Java values: maps, lists, strings, numbers, booleans
+ * and null. Shared by the streaming readers, so they all agree on how a body turns into values.
+ */
+public final class JsonValues {
+
+    // How decimals are returned: as floats to match GPath's default, or as doubles to keep their precision
+    public enum Decimals {
+        FLOAT, DOUBLE
+    }
+
+    private JsonValues() {
+    }
+
+    // Reads the value at the parser's current token and leaves the parser on its last token
+    public static Object read(JsonParser parser, Decimals decimals) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT:
+                Map<String, Object> object = new LinkedHashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    object.put(field, read(parser, decimals));
+                }
+                return object;
+            case START_ARRAY:
+                List<Object> array = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    array.add(read(parser, decimals));
+                }
+                return array;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return decimals == Decimals.FLOAT ? (Object) parser.getFloatValue() : (Object) parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package utils.models;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Serializes the API models to request bodies and reads responses back into them. The reader and writer
+ * are immutable and shared by all threads; encoding writes into Jackson's recycled per-thread buffers, so
+ * the only allocation per body is the returned byte array that becomes the request entity.
+ * Properties map to GitHub's snake_case field names; null properties are left out of request bodies.
+ */
+public final class ModelCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final ObjectWriter WRITER = MAPPER.writer();
+    private static final ObjectReader READER = MAPPER.reader();
+
+    private ModelCodec() {
+    }
+
+    public static byte[] encode(Object model) {
+        try {
+            return WRITER.writeValueAsBytes(model);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Could not serialize " + model.getClass().getSimpleName(), ex);
+        }
+    }
+
+    public static <T> T decode(byte[] body, Class<T> type) {
+        try {
+            return READER.readValue(body, type);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read " + type.getSimpleName() + " from " + new String(body), ex);
+        }
+    }
+
+    public static <T> T decode(Response response, Class<T> type) {
+        return decode(response.asByteArray(), type);
+    }
+}
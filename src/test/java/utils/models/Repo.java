@@ -0,0 +1,80 @@
+package utils.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A repository as returned by the repository endpoints. Fields the tests do not use are ignored.
+ */
+public final class Repo {
+
+    private long id;
+    private String nodeId;
+    private String name;
+    private String fullName;
+    @JsonProperty("private")
+    private boolean isPrivate;
+    private Owner owner;
+    private String description;
+    private String htmlUrl;
+    private String createdAt;
+    private String updatedAt;
+
+    public long getId() {
+        return id;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public boolean isPrivate() {
+        return isPrivate;
+    }
+
+    public Owner getOwner() {
+        return owner;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getHtmlUrl() {
+        return htmlUrl;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public static final class Owner {
+
+        private String login;
+        private long id;
+        private String type;
+
+        public String getLogin() {
+            return login;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+    }
+}
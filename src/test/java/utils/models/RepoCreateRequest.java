@@ -0,0 +1,36 @@
+package utils.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Body of POST /user/repos. Only name is required by the API; unset properties are not sent.
+ */
+public final class RepoCreateRequest {
+
+    private final String name;
+    private final String description;
+    @JsonProperty("private")
+    private final Boolean isPrivate;
+
+    public RepoCreateRequest(String name, String description) {
+        this(name, description, null);
+    }
+
+    public RepoCreateRequest(String name, String description, Boolean isPrivate) {
+        this.name = name;
+        this.description = description;
+        this.isPrivate = isPrivate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Boolean getPrivate() {
+        return isPrivate;
+    }
+}
@@ -0,0 +1,36 @@
+package utils.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Body of PATCH /repos/{owner}/{repo}. Unset properties are not sent, so the API leaves them unchanged.
+ */
+public final class RepoUpdateRequest {
+
+    private final String name;
+    private final String description;
+    @JsonProperty("private")
+    private final Boolean isPrivate;
+
+    public RepoUpdateRequest(String name, String description, Boolean isPrivate) {
+        this.name = name;
+        this.description = description;
+        this.isPrivate = isPrivate;
+    }
+
+    public static RepoUpdateRequest description(String description) {
+        return new RepoUpdateRequest(null, description, null);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Boolean getPrivate() {
+        return isPrivate;
+    }
+}
@@ -0,0 +1,58 @@
+package utils.shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Per-method test durations in milliseconds, keyed {@code class#method}, kept in a properties file between
+ * runs. New measurements are blended into the history with an exponential moving average, so one slow
+ * run shifts the estimate without overwriting it.
+ */
+public final class DurationHistory {
+
+    private static final double WEIGHT_OF_NEW = 0.5;
+
+    private DurationHistory() {
+    }
+
+    public static Map<String, Long> load(Path file) {
+        Map<String, Long> durations = new TreeMap<>();
+        if (!Files.isRegularFile(file)) {
+            return durations;
+        }
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(file)) {
+            properties.load(input);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read duration history " + file, ex);
+        }
+        properties.stringPropertyNames().forEach(key -> durations.put(key, Long.parseLong(properties.getProperty(key))));
+        return durations;
+    }
+
+    // Blends the measured durations into the file; safe to call from several JVMs one after another, not concurrently
+    public static synchronized void merge(Path file, Map<String, Long> measured) {
+        Map<String, Long> durations = load(file);
+        measured.forEach((test, millis) -> durations.merge(test, millis,
+                (old, now) -> Math.round(old * (1 - WEIGHT_OF_NEW) + now * WEIGHT_OF_NEW)));
+
+        // Written by hand, sorted, so the file stays diffable; method names need no properties escaping
+        StringBuilder text = new StringBuilder("# Test durations in ms, class#method\n");
+        durations.forEach((test, millis) -> text.append(test).append('=').append(millis).append('\n'));
+        try {
+            if (file.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+            }
+            Files.write(file, text.toString().getBytes(StandardCharsets.ISO_8859_1));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write duration history " + file, ex);
+        }
+    }
+}
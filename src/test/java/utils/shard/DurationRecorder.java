@@ -0,0 +1,52 @@
+package utils.shard;
+
+import org.testng.IExecutionListener;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+import utils.config.Config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures every test method, from the start of its first invocation to the end of its last, so a parallel
+ * data provider counts with its wall time, and merges the results into the SHARD_DURATIONS_FILE history at
+ * the end of the run, for {@link ShardPlanner} to balance on.
+ */
+public class DurationRecorder implements IInvokedMethodListener, IExecutionListener {
+
+    // class#method -> {first start, last end} in epoch millis
+    private final Map<String, long[]> spans = new ConcurrentHashMap<>();
+
+    public static String key(String className, String methodName) {
+        return className + "#" + methodName;
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isTestMethod()) {
+            spans.merge(key(testResult.getTestClass().getName(), testResult.getMethod().getMethodName()),
+                    new long[]{testResult.getStartMillis(), testResult.getEndMillis()},
+                    (span, next) -> new long[]{Math.min(span[0], next[0]), Math.max(span[1], next[1])});
+        }
+    }
+
+    @Override
+    public void onExecutionStart() {
+    }
+
+    @Override
+    public void onExecutionFinish() {
+        if (!spans.isEmpty()) {
+            Map<String, Long> measured = new HashMap<>();
+            spans.forEach((test, span) -> measured.put(test, span[1] - span[0]));
+            DurationHistory.merge(Config.get().getPath("SHARD_DURATIONS_FILE"), measured);
+        }
+    }
+}
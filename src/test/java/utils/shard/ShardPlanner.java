@@ -0,0 +1,67 @@
+package utils.shard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Splits test methods into shards of about equal expected duration: longest-processing-time-first bin
+ * packing, i.e. methods sorted by their historical duration and each one added to the currently shortest
+ * shard. The longest shard is then at most 4/3 of the optimum. Methods without history are assumed to
+ * take as long as the median known method.
+ */
+public final class ShardPlanner {
+
+    private ShardPlanner() {
+    }
+
+    public static List<Shard> plan(List<String> tests, Map<String, Long> history, int shardCount) {
+        long unknown = median(history);
+        List<String> sorted = new ArrayList<>(tests);
+        sorted.sort(Comparator.<String>comparingLong(test -> history.getOrDefault(test, unknown)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+
+        List<Shard> shards = new ArrayList<>();
+        PriorityQueue<Shard> shortestFirst = new PriorityQueue<>(
+                Comparator.comparingLong((Shard shard) -> shard.estimatedMillis).thenComparingInt(shard -> shard.index));
+        for (int i = 0; i < Math.max(1, shardCount); i++) {
+            Shard shard = new Shard(i + 1);
+            shards.add(shard);
+            shortestFirst.add(shard);
+        }
+        for (String test : sorted) {
+            Shard shard = shortestFirst.poll();
+            shard.tests.add(test);
+            shard.estimatedMillis += history.getOrDefault(test, unknown);
+            shortestFirst.add(shard);
+        }
+        shards.removeIf(shard -> shard.tests.isEmpty());
+        return shards;
+    }
+
+    private static long median(Map<String, Long> history) {
+        if (history.isEmpty()) {
+            return 1000;
+        }
+        List<Long> values = new ArrayList<>(history.values());
+        values.sort(null);
+        return values.get(values.size() / 2);
+    }
+
+    public static final class Shard {
+
+        public final int index;
+        public final List<String> tests = new ArrayList<>();
+        long estimatedMillis;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        public long estimatedMillis() {
+            return estimatedMillis;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package utils.shard;
+
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import utils.config.Config;
+import utils.stub.LocalStub;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs the test methods under {@code tests} in SHARD_COUNT forked JVMs, balanced on the SHARD_DURATIONS_FILE
+ * history by {@link ShardPlanner}. Each shard gets a generated suite and its own output directory in
+ * SHARD_OUTPUT_DIR; their testng-results.xml files are merged into one in that directory, and the measured
+ * durations are folded back into the history for the next run. When BASE_URL is localhost the stub is
+ * started here, once, and shared by all shards. Configuration given as -D properties applies to every shard;
+ * -Dshard.N.KEY=value applies to shard N only, e.g. to give each shard its own server or token.
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=utils.shard.ShardRunner -Dexec.classpathScope=test
+ */
+public final class ShardRunner {
+
+    private static final String TEST_PACKAGE = "tests";
+
+    private ShardRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int shardCount = Config.get().getInt("SHARD_COUNT");
+        Path historyFile = Config.get().getPath("SHARD_DURATIONS_FILE");
+        Path outputDir = Config.get().getPath("SHARD_OUTPUT_DIR");
+        String classpath = classpath();
+
+        List<ShardPlanner.Shard> shards = ShardPlanner.plan(discoverTests(classpath), DurationHistory.load(historyFile), shardCount);
+        deleteRecursively(outputDir);
+
+        LocalStub.startIfLocal();
+        long start = System.nanoTime();
+        Map<ShardPlanner.Shard, Process> processes = new LinkedHashMap<>();
+        for (ShardPlanner.Shard shard : shards) {
+            processes.put(shard, launch(shard, outputDir.resolve("shard-" + shard.index), classpath));
+        }
+
+        // One waiter per shard, so each shard's finishing time is taken when it exits
+        Map<ShardPlanner.Shard, CompletableFuture<Long>> finishedAfter = new LinkedHashMap<>();
+        processes.forEach((shard, process) -> finishedAfter.put(shard, CompletableFuture.supplyAsync(() -> {
+            try {
+                int exit = process.waitFor();
+                if (exit != 0) {
+                    System.err.println("Shard " + shard.index + " exited with " + exit);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return (System.nanoTime() - start) / 1_000_000;
+        })));
+        CompletableFuture.allOf(finishedAfter.values().toArray(new CompletableFuture<?>[0])).join();
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+        LocalStub.stop();
+
+        int[] totals = mergeResults(shards, outputDir);
+        for (ShardPlanner.Shard shard : shards) {
+            Path durations = outputDir.resolve("shard-" + shard.index).resolve("durations.properties");
+            DurationHistory.merge(historyFile, DurationHistory.load(durations));
+        }
+
+        System.out.printf("%-8s %7s %13s %16s%n", "shard", "tests", "estimated ms", "finished at ms");
+        for (ShardPlanner.Shard shard : shards) {
+            System.out.printf("%-8s %7d %13d %16d%n", shard.index, shard.tests.size(), shard.estimatedMillis(), finishedAfter.get(shard).join());
+        }
+        System.out.printf("Passed %d, failed %d, skipped %d in %d ms; merged results in %s%n",
+                totals[1], totals[2], totals[3], wallMillis, outputDir.resolve("testng-results.xml"));
+        if (totals[2] > 0) {
+            throw new IllegalStateException("Sharded run failed: " + totals[2] + " failed tests");
+        }
+    }
+
+    // Every @Test method of every concrete class under the tests package, as class#method
+    static List<String> discoverTests(String classpath) throws IOException, ClassNotFoundException {
+        List<String> tests = new ArrayList<>();
+        for (String entry : classpath.split(File.pathSeparator)) {
+            Path root = Paths.get(entry);
+            Path packageDir = root.resolve(TEST_PACKAGE);
+            if (!Files.isDirectory(packageDir)) {
+                continue;
+            }
+            List<String> classNames;
+            try (Stream<Path> files = Files.walk(packageDir)) {
+                classNames = files.filter(file -> file.toString().endsWith(".class") && !file.getFileName().toString().contains("$"))
+                        .map(file -> root.relativize(file).toString().replace(File.separatorChar, '.').replaceAll("\\.class$", ""))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            for (String className : classNames) {
+                Class<?> testClass = Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+                if (Modifier.isAbstract(testClass.getModifiers())) {
+                    continue;
+                }
+                for (Method method : testClass.getMethods()) {
+                    if (method.isAnnotationPresent(Test.class)) {
+                        tests.add(DurationRecorder.key(className, method.getName()));
+                    }
+                }
+            }
+        }
+        tests.sort(Comparator.naturalOrder());
+        return tests;
+    }
+
+    private static Process launch(ShardPlanner.Shard shard, Path shardDir, String classpath) throws IOException {
+        Files.createDirectories(shardDir);
+        Path suite = shardDir.resolve("suite.xml");
+        Files.write(suite, suiteXml(shard).getBytes(StandardCharsets.UTF_8));
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(classpath);
+        // Configuration keys given on the command line apply to the shards too
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.matches("[A-Z][A-Z0-9_]*") && !key.equals("SHARD_DURATIONS_FILE"))
+                .forEach(key -> command.add("-D" + key + "=" + System.getProperty(key)));
+        // Per-shard overrides, e.g. -Dshard.2.BASE_URL=http://localhost:8090, come after and so win
+        String shardPrefix = "shard." + shard.index + ".";
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith(shardPrefix))
+                .forEach(key -> command.add("-D" + key.substring(shardPrefix.length()) + "=" + System.getProperty(key)));
+        command.add("-DSHARD_DURATIONS_FILE=" + shardDir.resolve("durations.properties"));
+        command.add("org.testng.TestNG");
+        command.add("-d");
+        command.add(shardDir.toString());
+        command.add(suite.toString());
+
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(shardDir.resolve("output.log").toFile())
+                .start();
+    }
+
+    private static String suiteXml(ShardPlanner.Shard shard) {
+        Map<String, List<String>> methodsByClass = new LinkedHashMap<>();
+        shard.tests.stream().sorted().forEach(test -> methodsByClass
+                .computeIfAbsent(test.substring(0, test.indexOf('#')), c -> new ArrayList<>())
+                .add(test.substring(test.indexOf('#') + 1)));
+
+        StringBuilder xml = new StringBuilder("<!DOCTYPE suite SYSTEM \"http://testng.org/testng-1.0.dtd\" >\n")
+                .append("<suite name=\"Shard").append(shard.index).append("\">\n")
+                .append("    <test name=\"Shard").append(shard.index).append("\">\n")
+                .append("        <classes>\n");
+        methodsByClass.forEach((className, methods) -> {
+            xml.append("            <class name=\"").append(className).append("\">\n")
+                    .append("                <methods>\n");
+            methods.forEach(method -> xml.append("                    <include name=\"").append(method).append("\"/>\n"));
+            xml.append("                </methods>\n")
+                    .append("            </class>\n");
+        });
+        return xml.append("        </classes>\n")
+                .append("    </test>\n")
+                .append("</suite>\n")
+                .toString();
+    }
+
+    // Combines the shards' testng-results.xml into one; returns the summed total, passed, failed, skipped, ignored
+    private static int[] mergeResults(List<ShardPlanner.Shard> shards, Path outputDir) throws Exception {
+        DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        Document merged = builder.newDocument();
+        Element root = merged.createElement("testng-results");
+        merged.appendChild(root);
+
+        String[] counters = {"total", "passed", "failed", "skipped", "ignored"};
+        int[] totals = new int[counters.length];
+        for (ShardPlanner.Shard shard : shards) {
+            File results = outputDir.resolve("shard-" + shard.index).resolve("testng-results.xml").toFile();
+            if (!results.isFile()) {
+                System.err.println("Shard " + shard.index + " wrote no results, see its output.log");
+                totals[2] += shard.tests.size();
+                totals[0] += shard.tests.size();
+                continue;
+            }
+            Element shardRoot = builder.parse(results).getDocumentElement();
+            for (int i = 0; i < counters.length; i++) {
+                totals[i] += Integer.parseInt(shardRoot.getAttribute(counters[i]).isEmpty() ? "0" : shardRoot.getAttribute(counters[i]));
+            }
+            NodeList suites = shardRoot.getElementsByTagName("suite");
+            for (int i = 0; i < suites.getLength(); i++) {
+                Node suite = merged.importNode(suites.item(i), true);
+                root.appendChild(suite);
+            }
+        }
+        for (int i = 0; i < counters.length; i++) {
+            root.setAttribute(counters[i], String.valueOf(totals[i]));
+        }
+
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.transform(new DOMSource(merged), new StreamResult(outputDir.resolve("testng-results.xml").toFile()));
+        return totals;
+    }
+
+    // The test classpath: java.class.path when run directly, the context class loader's URLs under exec:java
+    private static String classpath() throws URISyntaxException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader instanceof URLClassLoader && ((URLClassLoader) loader).getURLs().length > 0) {
+            List<String> entries = new ArrayList<>();
+            for (URL url : ((URLClassLoader) loader).getURLs()) {
+                entries.add(Paths.get(url.toURI()).toString());
+            }
+            return String.join(File.pathSeparator, entries);
+        }
+        return System.getProperty("java.class.path");
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package utils.soak;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Samples heap after a full GC, live threads and open sockets, and flags resources that keep growing.
+ * A resource is flagged when, over the last {@code window} samples after the first {@code warmUp} ones,
+ * it never went down, grew in more than half of the steps, and for the heap grew by more than
+ * {@code heapGrowthPercent}. A resource that settles on a higher plateau is not flagged.
+ * Open sockets are counted from /proc/self/fd and reported as -1 where that is not available.
+ */
+final class ResourceSampler {
+
+    private static final Path PROC_FD = Paths.get("/proc/self/fd");
+
+    private final int warmUp;
+    private final int window;
+    private final double heapGrowthPercent;
+    private final long startNanos = System.nanoTime();
+    private final List<Sample> samples = new ArrayList<>();
+
+    ResourceSampler(int warmUp, int window, double heapGrowthPercent) {
+        this.warmUp = Math.max(0, warmUp);
+        this.window = Math.max(3, window);
+        this.heapGrowthPercent = heapGrowthPercent;
+    }
+
+    Sample sample() {
+        System.gc();
+        Sample sample = new Sample(
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos),
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+                ManagementFactory.getThreadMXBean().getThreadCount(),
+                openSockets());
+        samples.add(sample);
+
+        SampleEvent event = new SampleEvent();
+        event.heapAfterGc = sample.heapAfterGcBytes;
+        event.threads = sample.threads;
+        event.sockets = sample.sockets;
+        event.commit();
+        return sample;
+    }
+
+    List<Sample> samples() {
+        return Collections.unmodifiableList(samples);
+    }
+
+    // One message per resource that grew steadily over the last window of samples
+    List<String> leaks() {
+        List<String> leaks = new ArrayList<>();
+        if (samples.size() < warmUp + window) {
+            return leaks;
+        }
+        List<Sample> recent = samples.subList(samples.size() - window, samples.size());
+        check(recent, "heap after GC", sample -> sample.heapAfterGcBytes, heapGrowthPercent, leaks);
+        check(recent, "threads", sample -> sample.threads, 0, leaks);
+        if (recent.get(0).sockets >= 0) {
+            check(recent, "open sockets", sample -> sample.sockets, 0, leaks);
+        }
+        return leaks;
+    }
+
+    private static void check(List<Sample> recent, String resource, ToLongFunction<Sample> value,
+                              double minGrowthPercent, List<String> leaks) {
+        int grew = 0;
+        for (int i = 1; i < recent.size(); i++) {
+            long step = value.applyAsLong(recent.get(i)) - value.applyAsLong(recent.get(i - 1));
+            if (step < 0) {
+                return;
+            }
+            if (step > 0) {
+                grew++;
+            }
+        }
+        long first = value.applyAsLong(recent.get(0));
+        long last = value.applyAsLong(recent.get(recent.size() - 1));
+        if (grew * 2 > recent.size() - 1 && last - first > first * minGrowthPercent / 100) {
+            leaks.add(resource + " grew in " + grew + " of the last " + (recent.size() - 1) + " intervals, from "
+                    + first + " to " + last);
+        }
+    }
+
+    private static long openSockets() {
+        if (!Files.isDirectory(PROC_FD)) {
+            return -1;
+        }
+        long sockets = 0;
+        try (DirectoryStream<Path> descriptors = Files.newDirectoryStream(PROC_FD)) {
+            for (Path descriptor : descriptors) {
+                try {
+                    if (Files.readSymbolicLink(descriptor).toString().startsWith("socket:")) {
+                        sockets++;
+                    }
+                } catch (IOException ex) {
+                    // Closed between listing and reading
+                }
+            }
+        } catch (IOException ex) {
+            return -1;
+        }
+        return sockets;
+    }
+
+    static final class Sample {
+        final long elapsedSeconds;
+        final long heapAfterGcBytes;
+        final long threads;
+        final long sockets;
+
+        Sample(long elapsedSeconds, long heapAfterGcBytes, long threads, long sockets) {
+            this.elapsedSeconds = elapsedSeconds;
+            this.heapAfterGcBytes = heapAfterGcBytes;
+            this.threads = threads;
+            this.sockets = sockets;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("elapsedSeconds", elapsedSeconds);
+            row.put("heapAfterGcBytes", heapAfterGcBytes);
+            row.put("threads", threads);
+            row.put("openSockets", sockets);
+            return row;
+        }
+    }
+
+    @Name("utils.soak.ResourceSample")
+    @Label("Soak Resource Sample")
+    @Category({"GitHub API Tests", "Soak"})
+    @StackTrace(false)
+    static class SampleEvent extends Event {
+
+        @Label("Heap After GC")
+        @DataAmount
+        long heapAfterGc;
+
+        @Label("Threads")
+        long threads;
+
+        @Label("Open Sockets")
+        long sockets;
+    }
+}
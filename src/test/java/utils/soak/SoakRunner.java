@@ -0,0 +1,143 @@
+package utils.soak;
+
+import groovy.json.JsonOutput;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.testng.TestNG;
+import org.testng.xml.XmlSuite;
+import tests.repoTests.CreateRepo;
+import tests.repoTests.DeleteRepo;
+import tests.repoTests.EditRepo;
+import tests.repoTests.GetRepo;
+import utils.config.Config;
+import utils.metrics.ApiCallEvent;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Endurance run: executes the tests in tests.repoTests over and over in this JVM for SOAK_DURATION_MINUTES,
+ * so leaks that short runs never reach (pooled connections, threads, RestAssured and Groovy caches) add up.
+ * <p>
+ * After every iteration that ends at least SOAK_SAMPLE_SECONDS after the previous sample, a
+ * {@link ResourceSampler} records heap after GC, threads and open sockets; sampling between iterations
+ * sees the harness at rest, with the fixture pool and cleanup queue drained. The run stops early and fails
+ * as soon as one of them grows steadily. A Flight Recorder recording of the whole run, with an
+ * {@link ApiCallEvent} per request and the samples, is written to SOAK_JFR_FILE (bounded by
+ * SOAK_JFR_MAX_SIZE_MB), and the samples to SOAK_REPORT_FILE.
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=utils.soak.SoakRunner -Dexec.classpathScope=test
+ * -DBASE_URL=http://localhost:8089 -DRATE_LIMIT_CONTENT_PER_MINUTE=0 -DSOAK_DURATION_MINUTES=240
+ */
+public final class SoakRunner {
+
+    private static final Class<?>[] REPO_TESTS = {CreateRepo.class, GetRepo.class, EditRepo.class, DeleteRepo.class};
+
+    private final long durationNanos;
+    private final long sampleIntervalNanos;
+    private final int threadCount;
+    private final ResourceSampler sampler;
+    private final List<Integer> failedIterations = new ArrayList<>();
+    private int iterations;
+    private List<String> leaks = new ArrayList<>();
+
+    SoakRunner(long durationMinutes, long sampleSeconds, int threadCount, ResourceSampler sampler) {
+        this.durationNanos = TimeUnit.MINUTES.toNanos(durationMinutes);
+        this.sampleIntervalNanos = TimeUnit.SECONDS.toNanos(sampleSeconds);
+        this.threadCount = threadCount;
+        this.sampler = sampler;
+    }
+
+    public void run() {
+        long end = System.nanoTime() + durationNanos;
+        long nextSample = System.nanoTime();
+        while (System.nanoTime() < end && leaks.isEmpty()) {
+            iterations++;
+            if (!runTests()) {
+                failedIterations.add(iterations);
+            }
+            if (System.nanoTime() >= nextSample) {
+                ResourceSampler.Sample sample = sampler.sample();
+                System.out.printf("Iteration %d, %d s: heap after GC %d KB, %d threads, %d open sockets%n", iterations,
+                        sample.elapsedSeconds, sample.heapAfterGcBytes / 1024, sample.threads, sample.sockets);
+                nextSample = System.nanoTime() + sampleIntervalNanos;
+                leaks = sampler.leaks();
+            }
+        }
+    }
+
+    // One full TestNG run, with the listeners from META-INF/services but without the HTML reports
+    private boolean runTests() {
+        TestNG testng = new TestNG(false);
+        testng.setTestClasses(REPO_TESTS);
+        testng.setParallel(XmlSuite.ParallelMode.METHODS);
+        testng.setThreadCount(threadCount);
+        testng.setVerbose(0);
+        testng.run();
+        return !testng.hasFailure();
+    }
+
+    public boolean passed() {
+        return leaks.isEmpty() && failedIterations.isEmpty();
+    }
+
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("iterations", iterations);
+        report.put("failedIterations", failedIterations);
+        report.put("leaks", leaks);
+        report.put("samples", sampler.samples().stream().map(ResourceSampler.Sample::toMap).collect(Collectors.toList()));
+        return report;
+    }
+
+    public static void main(String[] args) throws IOException, ParseException {
+        Config config = Config.get();
+        SoakRunner runner = new SoakRunner(
+                config.getLong("SOAK_DURATION_MINUTES"),
+                config.getLong("SOAK_SAMPLE_SECONDS"),
+                config.getInt("SOAK_THREAD_COUNT"),
+                new ResourceSampler(config.getInt("SOAK_WARMUP_SAMPLES"), config.getInt("SOAK_GROWTH_SAMPLES"),
+                        config.getDouble("SOAK_HEAP_GROWTH_PERCENT")));
+
+        Path jfrFile = config.getPath("SOAK_JFR_FILE");
+        Files.createDirectories(jfrFile.toAbsolutePath().getParent());
+        try (Recording recording = new Recording(Configuration.getConfiguration("default"))) {
+            recording.setName("soak");
+            recording.enable(ApiCallEvent.class);
+            recording.enable(ResourceSampler.SampleEvent.class);
+            recording.setToDisk(true);
+            recording.setMaxSize(config.getLong("SOAK_JFR_MAX_SIZE_MB") * 1024 * 1024);
+            recording.start();
+            try {
+                runner.run();
+            } finally {
+                recording.dump(jfrFile);
+            }
+        }
+        System.out.println("Flight recording written to " + jfrFile);
+
+        Path reportFile = config.getPath("SOAK_REPORT_FILE");
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        Files.write(reportFile, JsonOutput.prettyPrint(JsonOutput.toJson(runner.report())).getBytes(StandardCharsets.UTF_8));
+        System.out.println("Report written to " + reportFile);
+
+        if (!runner.passed()) {
+            List<String> reasons = new ArrayList<>(runner.leaks);
+            if (!runner.failedIterations.isEmpty()) {
+                reasons.add("test failures in iterations " + runner.failedIterations);
+            }
+            throw new IllegalStateException("Soak run failed after " + runner.iterations + " iterations: "
+                    + String.join("; ", reasons));
+        }
+        System.out.println("Soak run passed: " + runner.iterations + " iterations without failures or steady growth");
+    }
+}
@@ -0,0 +1,667 @@
+package utils.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import groovy.json.JsonOutput;
+import groovy.json.JsonSlurper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory stand-in for the parts of the GitHub Repositories API used by the repo tests, plus the
+ * GraphQL repository lookups of {@link utils.api.GraphQlRepoLookup}.
+ * Requests are accepted by the JDK's selector-based HTTP server and handled on a pool of daemon threads.
+ * With a read lag, GET /repos/{owner}/{repo} answers from a replica that trails the writes by that long,
+ * the way GitHub's reads can briefly miss a create, edit or delete.
+ */
+public class GitHubStubServer {
+
+    private static final String DOCS_URL = "https://docs.github.com/rest";
+    private static final Pattern GRAPHQL_REPOSITORY = Pattern.compile(
+            "(\\w+)\\s*:\\s*repository\\s*\\(\\s*owner\\s*:\\s*(\\$\\w+|\"[^\"]*\")\\s*,\\s*name\\s*:\\s*(\\$\\w+|\"[^\"]*\")\\s*\\)");
+
+    static {
+        // The JDK server writes headers and body separately; with Nagle enabled every keep-alive
+        // response would stall on the client's delayed ACK. Must be set before the server classes load.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, String> loginsByToken = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> repos = new ConcurrentHashMap<>();
+    private final Map<String, RateWindow> rateWindows = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong(100000);
+    private volatile int rateLimit = 5000;
+    private final List<FaultRule> faultRules = new CopyOnWriteArrayList<>();
+    private volatile double randomFaultRate;
+    private volatile long readLagNanos;
+    private final Map<String, Deque<Version>> versions = new ConcurrentHashMap<>();
+
+    public GitHubStubServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "github-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public GitHubStubServer registerUser(String token, String login) {
+        loginsByToken.put(token, login);
+        return this;
+    }
+
+    public GitHubStubServer rateLimit(int requestsPerHour) {
+        rateLimit = requestsPerHour;
+        return this;
+    }
+
+    public GitHubStubServer seedRepo(String owner, String name) {
+        repos.putIfAbsent(key(owner, name), newRepo(owner, name, null, false));
+        return this;
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + port();
+    }
+
+    // The next times requests to exactly this method and path fail with the given fault
+    public GitHubStubServer failNext(String method, String path, int times, Fault fault) {
+        faultRules.add(new FaultRule(method.toUpperCase(Locale.ROOT), path, times, fault));
+        return this;
+    }
+
+    // GET /repos/{owner}/{repo} sees each write only this long after it was made
+    public GitHubStubServer readLag(long millis) {
+        readLagNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        return this;
+    }
+
+    // Every request fails with this probability, with a 502, a 503 or a reset before it is handled
+    public GitHubStubServer randomFaults(double rate) {
+        randomFaultRate = rate;
+        return this;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Fault fault = nextFault(exchange);
+            if (fault == Fault.RESET) {
+                // Closing before any response headers drops the connection, so the client fails at once
+                exchange.close();
+                return;
+            }
+            if (fault == Fault.SLOW) {
+                Thread.sleep(Fault.SLOW_MILLIS);
+            }
+            StubResponse response = fault == Fault.BAD_GATEWAY || fault == Fault.SERVICE_UNAVAILABLE
+                    ? StubResponse.json(fault == Fault.BAD_GATEWAY ? 502 : 503, error("Server Error"))
+                    : route(exchange);
+            if (fault == Fault.BAD_GATEWAY_AFTER_APPLY) {
+                // The request took effect, but the client never learns about it
+                response = StubResponse.json(502, error("Server Error"));
+            }
+            send(exchange, response);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            send(exchange, StubResponse.json(500, error("Server Error")));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Fault nextFault(HttpExchange exchange) {
+        String method = exchange.getRequestMethod().toUpperCase(Locale.ROOT);
+        String path = exchange.getRequestURI().getPath();
+        for (FaultRule rule : faultRules) {
+            if (rule.method.equals(method) && rule.path.equals(path) && rule.remaining.getAndDecrement() > 0) {
+                return rule.fault;
+            }
+        }
+        double rate = randomFaultRate;
+        if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+            Fault[] transientFaults = {Fault.BAD_GATEWAY, Fault.SERVICE_UNAVAILABLE, Fault.RESET};
+            return transientFaults[ThreadLocalRandom.current().nextInt(transientFaults.length)];
+        }
+        return null;
+    }
+
+    private StubResponse route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod().toUpperCase(Locale.ROOT);
+        String[] segments = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+
+        // Any request carrying an unknown token is rejected, regardless of the endpoint
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        String login = null;
+        if (authorization != null) {
+            login = loginsByToken.get(authorization.replaceFirst("(?i)^(Bearer|token)\\s+", ""));
+            if (login == null) {
+                return StubResponse.json(401, error("Bad credentials"));
+            }
+        }
+
+        // Every accepted request is charged to the caller's hourly window, like GitHub's primary rate limit;
+        // GraphQL has a window of its own
+        String resource = segments.length == 1 && segments[0].equals("graphql") ? "graphql" : "core";
+        RateWindow window = rateWindows.computeIfAbsent((login == null ? "" : login.toLowerCase(Locale.ROOT)) + "/" + resource,
+                identity -> new RateWindow());
+        long[] usage = window.charge(rateLimit);
+        StubResponse response = usage[0] > rateLimit
+                ? StubResponse.json(403, error("API rate limit exceeded for " + (login == null ? "anonymous caller" : login) + "."))
+                : dispatch(exchange, method, segments, login);
+        if (method.equals("GET") && response.status == 200) {
+            response = conditional(exchange, response);
+            // Like GitHub, an authenticated request answered with 304 is not charged
+            if (response.status == 304 && login != null) {
+                usage = window.refund();
+            }
+        }
+        response.headers.put("X-RateLimit-Limit", String.valueOf(rateLimit));
+        response.headers.put("X-RateLimit-Remaining", String.valueOf(Math.max(0, rateLimit - usage[0])));
+        response.headers.put("X-RateLimit-Used", String.valueOf(Math.min(usage[0], rateLimit)));
+        response.headers.put("X-RateLimit-Reset", String.valueOf(usage[1]));
+        response.headers.put("X-RateLimit-Resource", resource);
+        return response;
+    }
+
+    private StubResponse dispatch(HttpExchange exchange, String method, String[] segments, String login) throws IOException {
+        if (segments.length == 1 && segments[0].equals("graphql") && method.equals("POST")) {
+            return graphQl(login, readBody(exchange));
+        } else if (segments.length == 2 && segments[0].equals("user") && segments[1].equals("repos")) {
+            if (method.equals("POST")) {
+                return createRepo(login, readBody(exchange));
+            }
+            if (method.equals("GET")) {
+                return listRepos(login, exchange);
+            }
+        } else if (segments.length == 3 && segments[0].equals("repos")) {
+            switch (method) {
+                case "GET":
+                    return getRepo(login, segments[1], segments[2]);
+                case "PATCH":
+                    return editRepo(login, segments[1], segments[2], readBody(exchange));
+                case "DELETE":
+                    return deleteRepo(login, segments[1], segments[2]);
+                default:
+                    break;
+            }
+        }
+        return StubResponse.json(404, error("Not Found"));
+    }
+
+    // Tags every successful read with an ETag and answers 304 when the client already holds that version
+    private static StubResponse conditional(HttpExchange exchange, StubResponse response) {
+        String etag = String.format("W/\"%08x\"", Arrays.hashCode(response.body));
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        StubResponse result = etag.equals(ifNoneMatch) ? StubResponse.empty(304) : response;
+        result.headers.putAll(response.headers);
+        result.headers.put("ETag", etag);
+        return result;
+    }
+
+    private StubResponse createRepo(String login, String body) {
+        if (login == null) {
+            return StubResponse.json(401, error("Requires authentication"));
+        }
+        Map<String, Object> request = parseObject(body);
+        Object name = request.get("name");
+        if (!(name instanceof String) || ((String) name).isEmpty()) {
+            return StubResponse.json(422, validationError("missing_field", null));
+        }
+        if (!((String) name).matches("[A-Za-z0-9._-]{1,100}")) {
+            return StubResponse.json(422, validationError("custom", "name is invalid"));
+        }
+
+        Map<String, Object> repo = newRepo(login, (String) name, (String) request.get("description"),
+                Boolean.TRUE.equals(request.get("private")));
+        if (repos.putIfAbsent(key(login, (String) name), repo) != null) {
+            return StubResponse.json(422, validationError("custom", "name already exists on this account"));
+        }
+        Map<String, Object> created = snapshot(repo);
+        published(key(login, (String) name), null, created);
+        return StubResponse.json(201, created);
+    }
+
+    private StubResponse listRepos(String login, HttpExchange exchange) {
+        if (login == null) {
+            return StubResponse.json(401, error("Requires authentication"));
+        }
+        List<Map<String, Object>> owned = new ArrayList<>();
+        for (Map<String, Object> repo : repos.values()) {
+            if (login.equalsIgnoreCase(ownerOf(repo))) {
+                owned.add(snapshot(repo));
+            }
+        }
+        owned.sort(Comparator.comparing(repo -> ((String) repo.get("full_name")).toLowerCase(Locale.ROOT)));
+
+        // Paginate like GitHub: per_page defaults to 30 and is capped at 100, pages are linked via the Link header
+        Map<String, String> query = queryParams(exchange.getRequestURI().getRawQuery());
+        int perPage = Math.min(100, Math.max(1, Integer.parseInt(query.getOrDefault("per_page", "30"))));
+        int page = Math.max(1, Integer.parseInt(query.getOrDefault("page", "1")));
+        int lastPage = Math.max(1, (owned.size() + perPage - 1) / perPage);
+        int from = Math.min(owned.size(), (page - 1) * perPage);
+
+        StubResponse response = StubResponse.json(200, owned.subList(from, Math.min(owned.size(), from + perPage)));
+        if (lastPage > 1) {
+            String pageUrl = "http://" + exchange.getRequestHeaders().getFirst("Host") + "/user/repos?per_page=" + perPage + "&page=";
+            List<String> links = new ArrayList<>();
+            if (page < lastPage) {
+                links.add("<" + pageUrl + (page + 1) + ">; rel=\"next\"");
+                links.add("<" + pageUrl + lastPage + ">; rel=\"last\"");
+            }
+            if (page > 1) {
+                links.add("<" + pageUrl + 1 + ">; rel=\"first\"");
+                links.add("<" + pageUrl + (page - 1) + ">; rel=\"prev\"");
+            }
+            response.headers.put("Link", String.join(", ", links));
+        }
+        return response;
+    }
+
+    private StubResponse getRepo(String login, String owner, String name) {
+        Map<String, Object> repo = repos.get(key(owner, name));
+        Map<String, Object> view = replicated(key(owner, name), repo == null ? null : snapshot(repo));
+        if (view == null || (Boolean.TRUE.equals(view.get("private")) && !owner.equalsIgnoreCase(login))) {
+            return StubResponse.json(404, error("Not Found"));
+        }
+        return StubResponse.json(200, view);
+    }
+
+    /**
+     * Answers the aliased {@code alias: repository(owner:, name:)} fields of a query, owner and name given as
+     * variables or string literals; every other part of the query is ignored and each repo comes back with
+     * name, owner.login, nameWithOwner, isPrivate and description. Missing repos are null plus a NOT_FOUND error.
+     */
+    private StubResponse graphQl(String login, String body) {
+        if (login == null) {
+            return StubResponse.json(401, error("This endpoint requires you to be authenticated."));
+        }
+        Map<String, Object> request = parseObject(body);
+        Object query = request.get("query");
+        Map<?, ?> variables = request.get("variables") instanceof Map ? (Map<?, ?>) request.get("variables") : new LinkedHashMap<>();
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        List<Object> errors = new ArrayList<>();
+        Matcher field = GRAPHQL_REPOSITORY.matcher(query instanceof String ? (String) query : "");
+        while (field.find()) {
+            String alias = field.group(1);
+            String owner = String.valueOf(graphQlArgument(field.group(2), variables));
+            String name = String.valueOf(graphQlArgument(field.group(3), variables));
+            Map<String, Object> repo = repos.get(key(owner, name));
+            Map<String, Object> view = repo == null ? null : snapshot(repo);
+            if (view == null || (Boolean.TRUE.equals(view.get("private")) && !owner.equalsIgnoreCase(login))) {
+                data.put(alias, null);
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("type", "NOT_FOUND");
+                error.put("path", Collections.singletonList(alias));
+                error.put("message", "Could not resolve to a Repository with the name '" + owner + "/" + name + "'.");
+                errors.add(error);
+                continue;
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("name", view.get("name"));
+            result.put("owner", Collections.singletonMap("login", ownerOf(repo)));
+            result.put("nameWithOwner", view.get("full_name"));
+            result.put("isPrivate", view.get("private"));
+            result.put("description", view.get("description"));
+            data.put(alias, result);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        if (data.isEmpty()) {
+            errors.add(Collections.singletonMap("message", "The stub only answers repository(owner:, name:) fields"));
+        } else {
+            response.put("data", data);
+        }
+        if (!errors.isEmpty()) {
+            response.put("errors", errors);
+        }
+        return StubResponse.json(200, response);
+    }
+
+    private static Object graphQlArgument(String argument, Map<?, ?> variables) {
+        return argument.startsWith("$") ? variables.get(argument.substring(1)) : argument.substring(1, argument.length() - 1);
+    }
+
+    private StubResponse editRepo(String login, String owner, String name, String body) {
+        Map<String, Object> repo = repos.get(key(owner, name));
+        if (repo == null || login == null) {
+            return StubResponse.json(404, error("Not Found"));
+        }
+        if (!owner.equalsIgnoreCase(login)) {
+            return StubResponse.json(403, error("Must have admin rights to Repository."));
+        }
+
+        Map<String, Object> changes = parseObject(body);
+        Object newName = changes.get("name");
+        if (newName != null && !(newName instanceof String && ((String) newName).matches("[A-Za-z0-9._-]{1,100}"))) {
+            return StubResponse.json(422, validationError("custom", "name is invalid"));
+        }
+
+        synchronized (repo) {
+            Map<String, Object> before = new LinkedHashMap<>(repo);
+            // The rename is claimed first, so an edit rejected for a taken name changes nothing
+            if (newName != null && !newName.equals(repo.get("name"))) {
+                if (repos.putIfAbsent(key(owner, (String) newName), repo) != null) {
+                    return StubResponse.json(422, validationError("custom", "name already exists on this account"));
+                }
+                repos.remove(key(owner, name));
+                repo.put("name", newName);
+                repo.put("full_name", ownerOf(repo) + "/" + newName);
+            }
+            if (changes.containsKey("description")) {
+                repo.put("description", changes.get("description"));
+            }
+            if (changes.containsKey("private")) {
+                repo.put("private", Boolean.TRUE.equals(changes.get("private")));
+            }
+            repo.put("updated_at", timestamp());
+            Map<String, Object> after = new LinkedHashMap<>(repo);
+            if (after.get("name").equals(before.get("name"))) {
+                published(key(owner, name), before, after);
+            } else {
+                published(key(owner, name), before, null);
+                published(key(owner, (String) newName), null, after);
+            }
+            return StubResponse.json(200, after);
+        }
+    }
+
+    private StubResponse deleteRepo(String login, String owner, String name) {
+        Map<String, Object> repo = repos.get(key(owner, name));
+        if (repo == null) {
+            return StubResponse.json(404, error("Not Found"));
+        }
+        if (!owner.equalsIgnoreCase(login)) {
+            return StubResponse.json(403, error("Must have admin rights to Repository."));
+        }
+        if (repos.remove(key(owner, name), repo)) {
+            published(key(owner, name), snapshot(repo), null);
+        }
+        return StubResponse.empty(204);
+    }
+
+    private Map<String, Object> newRepo(String owner, String name, String description, boolean isPrivate) {
+        long id = ids.incrementAndGet();
+        Map<String, Object> ownerJson = new LinkedHashMap<>();
+        ownerJson.put("login", owner);
+        ownerJson.put("id", Math.abs(owner.toLowerCase(Locale.ROOT).hashCode()));
+        ownerJson.put("type", "User");
+
+        Map<String, Object> repo = new LinkedHashMap<>();
+        repo.put("id", id);
+        repo.put("node_id", "R_stub" + Long.toString(id, 36));
+        repo.put("name", name);
+        repo.put("full_name", owner + "/" + name);
+        repo.put("private", isPrivate);
+        repo.put("owner", ownerJson);
+        repo.put("html_url", "https://github.com/" + owner + "/" + name);
+        repo.put("description", description);
+        repo.put("url", "https://api.github.com/repos/" + owner + "/" + name);
+        repo.put("created_at", timestamp());
+        repo.put("updated_at", timestamp());
+        return repo;
+    }
+
+    // Records a write for the lagging reads; the state before the first recorded write counts as always visible
+    private void published(String key, Map<String, Object> before, Map<String, Object> after) {
+        long lag = readLagNanos;
+        if (lag == 0) {
+            return;
+        }
+        Deque<Version> history = versions.computeIfAbsent(key, k -> {
+            Deque<Version> initial = new ArrayDeque<>();
+            initial.add(new Version(Long.MIN_VALUE, before));
+            return initial;
+        });
+        synchronized (history) {
+            history.add(new Version(System.nanoTime(), after));
+        }
+    }
+
+    // The state of a repo as the lagging replica sees it: the latest version written at least readLag ago
+    private Map<String, Object> replicated(String key, Map<String, Object> current) {
+        long lag = readLagNanos;
+        Deque<Version> history = lag == 0 ? null : versions.get(key);
+        if (history == null) {
+            return current;
+        }
+        long visibleBefore = System.nanoTime() - lag;
+        synchronized (history) {
+            // Versions older than the latest visible one are never read again
+            while (history.size() > 1) {
+                Version oldest = history.removeFirst();
+                if (history.getFirst().writtenAtNanos - visibleBefore > 0) {
+                    history.addFirst(oldest);
+                    break;
+                }
+            }
+            return history.getFirst().view;
+        }
+    }
+
+    // Repos are mutated in place under their own lock, so responses always render a consistent copy
+    private static Map<String, Object> snapshot(Map<String, Object> repo) {
+        synchronized (repo) {
+            return new LinkedHashMap<>(repo);
+        }
+    }
+
+    private static String ownerOf(Map<String, Object> repo) {
+        synchronized (repo) {
+            return (String) ((Map<?, ?>) repo.get("owner")).get("login");
+        }
+    }
+
+    private static String key(String owner, String name) {
+        return (owner + "/" + name).toLowerCase(Locale.ROOT);
+    }
+
+    private static String timestamp() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS).toString();
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("message", message);
+        body.put("documentation_url", DOCS_URL);
+        return body;
+    }
+
+    private static Map<String, Object> validationError(String code, String message) {
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("resource", "Repository");
+        detail.put("code", code);
+        detail.put("field", "name");
+        if (message != null) {
+            detail.put("message", message);
+        }
+        List<Object> errors = new ArrayList<>();
+        errors.add(detail);
+
+        Map<String, Object> body = error("Repository creation failed.");
+        body.put("errors", errors);
+        return body;
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int separator = pair.indexOf('=');
+                if (separator > 0) {
+                    params.put(pair.substring(0, separator), pair.substring(separator + 1));
+                }
+            }
+        }
+        return params;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parseObject(String body) {
+        if (body == null || body.trim().isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Object parsed = new JsonSlurper().parseText(body);
+        return parsed instanceof Map ? (Map<String, Object>) parsed : new LinkedHashMap<>();
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (InputStream input = exchange.getRequestBody()) {
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, StubResponse response) throws IOException {
+        for (Map.Entry<String, String> header : response.headers.entrySet()) {
+            exchange.getResponseHeaders().set(header.getKey(), header.getValue());
+        }
+        if (response.body.length == 0) {
+            exchange.sendResponseHeaders(response.status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, response.body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(response.body);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        GitHubStubServer stub = new GitHubStubServer(port);
+        LocalStub.configure(stub);
+        stub.start();
+        System.out.println("GitHub stub listening on " + stub.baseUrl());
+        Thread.currentThread().join();
+    }
+
+    private static final class Version {
+        final long writtenAtNanos;
+        final Map<String, Object> view;
+
+        Version(long writtenAtNanos, Map<String, Object> view) {
+            this.writtenAtNanos = writtenAtNanos;
+            this.view = view;
+        }
+    }
+
+    public enum Fault {
+        /** 502 without handling the request */
+        BAD_GATEWAY,
+        /** 503 without handling the request */
+        SERVICE_UNAVAILABLE,
+        /** The connection is closed without a response, before the request is handled */
+        RESET,
+        /** The request is handled, but the client gets a 502 */
+        BAD_GATEWAY_AFTER_APPLY,
+        /** Handled normally after a delay of SLOW_MILLIS */
+        SLOW;
+
+        public static final long SLOW_MILLIS = 500;
+    }
+
+    private static final class FaultRule {
+        final String method;
+        final String path;
+        final AtomicInteger remaining;
+        final Fault fault;
+
+        FaultRule(String method, String path, int times, Fault fault) {
+            this.method = method;
+            this.path = path;
+            this.remaining = new AtomicInteger(times);
+            this.fault = fault;
+        }
+    }
+
+    static final class RateWindow {
+        private long used;
+        private long resetEpochSeconds;
+
+        // Returns the requests used in the current window, including this one, and the window's reset time
+        synchronized long[] charge(int limit) {
+            long now = System.currentTimeMillis() / 1000;
+            if (now >= resetEpochSeconds) {
+                used = 0;
+                resetEpochSeconds = now + 3600;
+            }
+            used = Math.min(used + 1, limit + 1L);
+            return new long[]{used, resetEpochSeconds};
+        }
+
+        synchronized long[] refund() {
+            used = Math.max(0, used - 1);
+            return new long[]{used, resetEpochSeconds};
+        }
+    }
+
+    static final class StubResponse {
+        final int status;
+        final byte[] body;
+        final Map<String, String> headers = new LinkedHashMap<>();
+
+        private StubResponse(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static StubResponse json(int status, Object body) {
+            return new StubResponse(status, JsonOutput.toJson(body).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static StubResponse empty(int status) {
+            return new StubResponse(status, new byte[0]);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package utils.stub;
+
+import utils.auth.Credential;
+import utils.auth.CredentialPool;
+import utils.config.Config;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.URI;
+
+/**
+ * Runs the in-process GitHub stub whenever BASE_URL points at localhost, e.g. -DBASE_URL=http://localhost:8089.
+ * Against the real API both methods are no-ops.
+ */
+public final class LocalStub {
+
+    private static GitHubStubServer stub;
+
+    private LocalStub() {
+    }
+
+    public static synchronized void startIfLocal() {
+        URI baseUri = URI.create(Config.get().getString("BASE_URL"));
+        if (stub != null || (!"localhost".equalsIgnoreCase(baseUri.getHost()) && !"127.0.0.1".equals(baseUri.getHost()))) {
+            return;
+        }
+
+        try {
+            stub = configure(new GitHubStubServer(baseUri.getPort() == -1 ? 80 : baseUri.getPort()));
+            stub.start();
+        } catch (BindException ex) {
+            // Port already taken, most likely by a stub started via GitHubStubServer.main
+            stub = null;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not start GitHub stub on " + baseUri, ex);
+        }
+    }
+
+    public static synchronized void stop() {
+        if (stub != null) {
+            stub.stop();
+            stub = null;
+        }
+    }
+
+    // The stub started by this process, or null when the tests run against another server
+    public static synchronized GitHubStubServer running() {
+        return stub;
+    }
+
+    // Every pooled identity is a stub user with its own copy of REPO_NAME, as each would need on GitHub
+    static GitHubStubServer configure(GitHubStubServer stub) {
+        stub.randomFaults(Config.get().getDouble("STUB_FAULT_RATE"))
+                .rateLimit(Config.get().getInt("STUB_RATE_LIMIT_PER_HOUR"))
+                .readLag(Config.get().getLong("STUB_READ_LAG_MS"));
+        for (Credential credential : CredentialPool.get().all()) {
+            stub.registerUser(credential.token(), credential.owner())
+                    .seedRepo(credential.owner(), Config.get().getString("REPO_NAME"));
+        }
+        return stub;
+    }
+}
@@ -0,0 +1,47 @@
+package utils.transport;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.internal.filter.SendRequestFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import io.restassured.specification.RequestSpecification;
+import utils.api.HttpConnectionPool;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * RestAssured's own sending step, on Apache HttpClient 4 and the shared keep-alive pool. HTTP/1.1 only, so
+ * every request in flight holds a connection of its own.
+ * Calls {@link SendRequestFilter} directly rather than {@code ctx.next}: once the chain has been used up,
+ * {@code next} only returns null, and a retried request has to be sent again.
+ */
+final class ApacheTransport implements HttpTransport {
+
+    private static final SendRequestFilter SEND = new SendRequestFilter();
+
+    @Override
+    public String name() {
+        return "apache";
+    }
+
+    @Override
+    public Response send(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                         FilterContext ctx) {
+        return SEND.filter(requestSpec, responseSpec, ctx);
+    }
+
+    @Override
+    public Response get(String uri, Headers headers) {
+        RequestSpecification spec = given().config(HttpConnectionPool.config());
+        for (Header header : headers) {
+            // RestAssured adds its own
+            if (!"Content-Type".equalsIgnoreCase(header.getName()) && !"Accept".equalsIgnoreCase(header.getName())) {
+                spec.header(header);
+            }
+        }
+        return spec.get(uri);
+    }
+}
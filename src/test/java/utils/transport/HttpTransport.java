@@ -0,0 +1,23 @@
+package utils.transport;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Puts the requests built by the shared specs on the wire. The filter chain runs the same for every transport;
+ * only this last step is swapped. {@link HttpTransports#configured()} returns the one selected by HTTP_TRANSPORT.
+ */
+public interface HttpTransport {
+
+    String name();
+
+    // Sends the request as it stands at the end of the filter chain; may be called again to re-send it
+    Response send(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                  FilterContext ctx);
+
+    // Sends an independent GET outside the filter chain, e.g. a hedge racing the original request
+    Response get(String uri, Headers headers);
+}
@@ -0,0 +1,33 @@
+package utils.transport;
+
+import utils.config.Config;
+
+import java.util.Locale;
+
+/**
+ * Picks the transport named by HTTP_TRANSPORT: "apache" (default) for RestAssured's own HttpClient 4 stack on
+ * the keep-alive {@link utils.api.HttpConnectionPool}, or "jdk" for java.net.http, which multiplexes concurrent
+ * requests over a few HTTP/2 connections where the server supports it.
+ */
+public final class HttpTransports {
+
+    private static final HttpTransport CONFIGURED = create(Config.get().getString("HTTP_TRANSPORT"));
+
+    private HttpTransports() {
+    }
+
+    public static HttpTransport configured() {
+        return CONFIGURED;
+    }
+
+    public static HttpTransport create(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "apache":
+                return new ApacheTransport();
+            case "jdk":
+                return new JdkHttpTransport();
+            default:
+                throw new IllegalArgumentException("Unknown HTTP_TRANSPORT '" + name + "', expected apache or jdk");
+        }
+    }
+}
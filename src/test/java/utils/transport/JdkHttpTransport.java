@@ -0,0 +1,114 @@
+package utils.transport;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import utils.metrics.RequestTimings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Sends requests with java.net.http. Over TLS the client negotiates HTTP/2 and multiplexes every request in
+ * flight to a host over one connection; against plain-HTTP servers without h2c, such as the in-process stub,
+ * it falls back to HTTP/1.1 with a pool of its own.
+ * The client hides its connections, so only time to first byte is recorded, and it includes connection setup.
+ */
+final class JdkHttpTransport implements HttpTransport {
+
+    // Set by the client itself; java.net.http rejects requests that try to
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        RESTRICTED_HEADERS.addAll(Arrays.asList("Connection", "Content-Length", "Expect", "Host", "Upgrade"));
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    @Override
+    public String name() {
+        return "jdk";
+    }
+
+    @Override
+    public Response send(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                         FilterContext ctx) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(requestSpec.getURI()))
+                .method(requestSpec.getMethod().toUpperCase(Locale.ROOT), bodyOf(requestSpec.getBody()));
+        Headers headers = requestSpec.getHeaders();
+        copyHeaders(headers, request);
+        if (!headers.hasHeaderWithName("Content-Type") && requestSpec.getContentType() != null) {
+            request.header("Content-Type", requestSpec.getContentType());
+        }
+        return exchange(request.build());
+    }
+
+    @Override
+    public Response get(String uri, Headers headers) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(uri)).GET();
+        copyHeaders(headers, request);
+        return exchange(request.build());
+    }
+
+    private Response exchange(HttpRequest request) {
+        long[] headersReceivedAt = new long[1];
+        HttpResponse<byte[]> response;
+        RequestTimings.requestSent();
+        try {
+            response = client.send(request, info -> {
+                headersReceivedAt[0] = System.nanoTime();
+                return HttpResponse.BodySubscribers.ofByteArray();
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(request.method() + " " + request.uri() + " failed", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending " + request.method() + " " + request.uri(), ex);
+        }
+        RequestTimings.firstByteReceivedAt(headersReceivedAt[0]);
+
+        List<Header> headers = new ArrayList<>();
+        response.headers().map().forEach((name, values) -> values.forEach(value -> headers.add(new Header(name, value))));
+        ResponseBuilder builder = new ResponseBuilder()
+                .setStatusCode(response.statusCode())
+                .setStatusLine((response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2 " : "HTTP/1.1 ") + response.statusCode())
+                .setHeaders(new Headers(headers))
+                .setBody(response.body());
+        response.headers().firstValue("Content-Type").ifPresent(builder::setContentType);
+        return builder.build();
+    }
+
+    private static void copyHeaders(Headers headers, HttpRequest.Builder request) {
+        for (Header header : headers) {
+            if (!RESTRICTED_HEADERS.contains(header.getName())) {
+                request.header(header.getName(), header.getValue());
+            }
+        }
+    }
+
+    private static HttpRequest.BodyPublisher bodyOf(Object body) {
+        if (body == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        return HttpRequest.BodyPublishers.ofByteArray(
+                body instanceof byte[] ? (byte[]) body : body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}